@@ -262,4 +262,9 @@ public class BasicBlock implements IGraphNode {
   public void setPredExceptions(List<BasicBlock> predExceptions) {
     this.predExceptions = predExceptions;
   }
+
+  @Override
+  public int hashCode() {
+    return id;
+  }
 }
@@ -22,6 +22,7 @@ import de.fernflower.struct.consts.LinkConstant;
 import de.fernflower.struct.consts.PooledConstant;
 import de.fernflower.struct.consts.PrimitiveConstant;
 import de.fernflower.struct.gen.DataPoint;
+import de.fernflower.struct.gen.FieldDescriptor;
 import de.fernflower.struct.gen.MethodDescriptor;
 import de.fernflower.struct.gen.VarType;
 import de.fernflower.util.ListStack;
@@ -459,7 +460,7 @@ public class InstructionImpact {
         stack.pop();
       case CodeConstants.opc_getstatic:
         ck = pool.getLinkConstant(instr.getOperand(0));
-        var1 = new VarType(ck.descriptor);
+        var1 = FieldDescriptor.parseDescriptor(ck.descriptor).type;
         stack.push(var1);
         if (var1.stackSize == 2) {
           stack.push(new VarType(CodeConstants.TYPE_GROUP2EMPTY));
@@ -469,7 +470,7 @@ public class InstructionImpact {
         stack.pop();
       case CodeConstants.opc_putstatic:
         ck = pool.getLinkConstant(instr.getOperand(0));
-        var1 = new VarType(ck.descriptor);
+        var1 = FieldDescriptor.parseDescriptor(ck.descriptor).type;
         stack.pop(var1.stackSize);
         break;
       case CodeConstants.opc_invokevirtual:
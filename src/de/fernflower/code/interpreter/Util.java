@@ -269,7 +269,7 @@ public class Util {
 
     int[] interfaces = cl.getInterfaces();
     for (int i = 0; i < interfaces.length; i++) {
-      String intfc = cl.getPool().getPrimitiveConstant(interfaces[i]).getString();
+      String intfc = cl.getInterface(i);
 
       if (instanceOf(context, intfc, refclass)) {
         return true;
@@ -19,7 +19,6 @@ import de.fernflower.code.CodeConstants;
 import de.fernflower.code.cfg.BasicBlock;
 import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.CounterContainer;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.rels.ClassWrapper;
 import de.fernflower.main.rels.MethodWrapper;
 import de.fernflower.modules.decompiler.SecondaryFunctionsHelper;
@@ -69,7 +68,7 @@ public class AssertProcessor {
 
     ClassWrapper wrapper = node.getWrapper();
 
-    boolean noSynthFlag = DecompilerContext.getOption(IFernflowerPreferences.SYNTHETIC_NOT_SET);
+    boolean noSynthFlag = DecompilerContext.getOptions().syntheticNotSet;
 
     for (StructField fd : wrapper.getClassStruct().getFields()) {
 
@@ -17,7 +17,6 @@ package de.fernflower.main;
 
 import de.fernflower.code.CodeConstants;
 import de.fernflower.main.ClassesProcessor.ClassNode;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.rels.ClassWrapper;
 import de.fernflower.main.rels.MethodWrapper;
 import de.fernflower.modules.decompiler.exps.*;
@@ -174,7 +173,7 @@ public class ClassReference14Processor {
   }
 
   private void mapClassMethods(ClassNode node, Map<ClassWrapper, MethodWrapper> map) {
-    boolean noSynthFlag = DecompilerContext.getOption(IFernflowerPreferences.SYNTHETIC_NOT_SET);
+    boolean noSynthFlag = DecompilerContext.getOptions().syntheticNotSet;
 
     ClassWrapper wrapper = node.getWrapper();
 
@@ -263,7 +262,7 @@ public class ClassReference14Processor {
                   wrapper.getClassStruct().getField(field.getName(), field.getDescriptor().descriptorString);  // FIXME: can be null! why??
 
                 if (fd != null && fd.hasModifier(CodeConstants.ACC_STATIC) &&
-                    (fd.isSynthetic() || DecompilerContext.getOption(IFernflowerPreferences.SYNTHETIC_NOT_SET))) {
+                    (fd.isSynthetic() || DecompilerContext.getOptions().syntheticNotSet)) {
 
                   if (fexpr.getLstOperands().get(1).type == Exprent.EXPRENT_ASSIGNMENT && fexpr.getLstOperands().get(2).equals(field)) {
                     AssignmentExprent asexpr = (AssignmentExprent)fexpr.getLstOperands().get(1);
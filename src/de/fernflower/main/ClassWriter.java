@@ -18,8 +18,8 @@ package de.fernflower.main;
 import de.fernflower.code.CodeConstants;
 import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.BytecodeMappingTracer;
+import de.fernflower.main.collectors.CounterContainer;
 import de.fernflower.main.extern.IFernflowerLogger;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.providers.IJavadocProvider;
 import de.fernflower.main.rels.ClassWrapper;
 import de.fernflower.main.rels.MethodWrapper;
@@ -63,15 +63,15 @@ public class ClassWriter {
 
     InitializerProcessor.extractInitializers(wrapper);
 
-    if (node.type == ClassNode.CLASS_ROOT && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_CLASS_1_4)) {
+    if (node.type == ClassNode.CLASS_ROOT && DecompilerContext.getOptions().decompileClass14) {
       ref14processor.processClassReferences(node);
     }
 
-    if (cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM)) {
+    if (cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum) {
       EnumProcessor.clearEnum(wrapper);
     }
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ASSERTIONS)) {
+    if (DecompilerContext.getOptions().decompileAssertions) {
       AssertProcessor.buildAssertions(node);
     }
   }
@@ -82,7 +82,7 @@ public class ClassWriter {
       return;
     }
 
-    boolean lambdaToAnonymous = DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS);
+    boolean lambdaToAnonymous = DecompilerContext.getOptions().lambdaToAnonymousClass;
 
     ClassNode outerNode = (ClassNode)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS_NODE);
     DecompilerContext.setProperty(DecompilerContext.CURRENT_CLASS_NODE, node);
@@ -182,11 +182,11 @@ public class ClassWriter {
       dummy_tracer.incrementCurrentSourceLine(buffer.countLines(start_class_def));
 
       for (StructField fd : cl.getFields()) {
-        boolean hide = fd.isSynthetic() && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
+        boolean hide = fd.isSynthetic() && DecompilerContext.getOptions().removeSynthetic ||
                        wrapper.getHiddenMembers().contains(InterpreterUtil.makeUniqueKey(fd.getName(), fd.getDescriptor()));
         if (hide) continue;
 
-        boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+        boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum;
         if (isEnum) {
           if (enumFields) {
             buffer.append(',').appendLineSeparator();
@@ -217,8 +217,8 @@ public class ClassWriter {
 
       // methods
       for (StructMethod mt : cl.getMethods()) {
-        boolean hide = mt.isSynthetic() && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
-                       mt.hasModifier(CodeConstants.ACC_BRIDGE) && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_BRIDGE) ||
+        boolean hide = mt.isSynthetic() && DecompilerContext.getOptions().removeSynthetic ||
+                       mt.hasModifier(CodeConstants.ACC_BRIDGE) && DecompilerContext.getOptions().removeBridge ||
                        wrapper.getHiddenMembers().contains(InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
         if (hide) continue;
 
@@ -246,7 +246,7 @@ public class ClassWriter {
         if (inner.type == ClassNode.CLASS_MEMBER) {
           StructClass innerCl = inner.classStruct;
           boolean isSynthetic = (inner.access & CodeConstants.ACC_SYNTHETIC) != 0 || innerCl.isSynthetic() || inner.namelessConstructorStub;
-          boolean hide = isSynthetic && DecompilerContext.getOption(IFernflowerPreferences.REMOVE_SYNTHETIC) ||
+          boolean hide = isSynthetic && DecompilerContext.getOptions().removeSynthetic ||
                          wrapper.getHiddenMembers().contains(innerCl.qualifiedName);
           if (hide) continue;
 
@@ -294,7 +294,7 @@ public class ClassWriter {
     int flags = node.type == ClassNode.CLASS_ROOT ? cl.getAccessFlags() : node.access;
     boolean isDeprecated = cl.getAttributes().containsKey("Deprecated");
     boolean isSynthetic = (flags & CodeConstants.ACC_SYNTHETIC) != 0 || cl.getAttributes().containsKey("Synthetic");
-    boolean isEnum = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM) && (flags & CodeConstants.ACC_ENUM) != 0;
+    boolean isEnum = DecompilerContext.getOptions().decompileEnum && (flags & CodeConstants.ACC_ENUM) != 0;
     boolean isInterface = (flags & CodeConstants.ACC_INTERFACE) != 0;
     boolean isAnnotation = (flags & CodeConstants.ACC_ANNOTATION) != 0;
 
@@ -341,7 +341,7 @@ public class ClassWriter {
     }
 
     GenericClassDescriptor descriptor = null;
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+    if (DecompilerContext.getOptions().decompileGenericSignatures) {
       StructGenericSignatureAttribute attr = (StructGenericSignatureAttribute)cl.getAttributes().getWithKey("Signature");
       if (attr != null) {
         descriptor = GenericMain.parseClassSignature(attr.getSignature());
@@ -396,7 +396,7 @@ public class ClassWriter {
     int start = buffer.length();
     boolean isInterface = cl.hasModifier(CodeConstants.ACC_INTERFACE);
     boolean isDeprecated = fd.getAttributes().containsKey("Deprecated");
-    boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+    boolean isEnum = fd.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum;
 
     if (isDeprecated) {
       appendDeprecation(buffer, indent);
@@ -426,7 +426,7 @@ public class ClassWriter {
     VarType fieldType = new VarType(fd.getDescriptor(), false);
 
     GenericFieldDescriptor descriptor = null;
-    if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+    if (DecompilerContext.getOptions().decompileGenericSignatures) {
       StructGenericSignatureAttribute attr = (StructGenericSignatureAttribute)fd.getAttributes().getWithKey("Signature");
       if (attr != null) {
         descriptor = GenericMain.parseFieldSignature(attr.getSignature());
@@ -493,6 +493,10 @@ public class ClassWriter {
     MethodWrapper outerWrapper = (MethodWrapper)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD_WRAPPER);
     DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, methodWrapper);
 
+    // new exprents and statements take their ids from the method's own counters
+    CounterContainer outerCounter = DecompilerContext.getCounterContainer();
+    DecompilerContext.setCounterContainer(methodWrapper.counter);
+
     try {
       String method_name = lambdaNode.lambdaInformation.method_name;
       MethodDescriptor md_content = MethodDescriptor.parseDescriptor(lambdaNode.lambdaInformation.content_method_descriptor);
@@ -516,7 +520,7 @@ public class ClassWriter {
 
             String typeName = ExprProcessor.getCastTypeName(md_content.params[i].copy());
             if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeName) &&
-                DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
+                DecompilerContext.getOptions().undefinedParamTypeObject) {
               typeName = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT);
             }
 
@@ -546,6 +550,7 @@ public class ClassWriter {
           catch (Throwable ex) {
             DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be written.", ex);
             methodWrapper.decompiledWithErrors = true;
+            DecompilerContext.getClassProcessor().reportMethodError();
           }
         }
       }
@@ -567,6 +572,7 @@ public class ClassWriter {
     }
     finally {
       DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, outerWrapper);
+      DecompilerContext.setCounterContainer(outerCounter);
     }
   }
 
@@ -601,10 +607,14 @@ public class ClassWriter {
     MethodWrapper outerWrapper = (MethodWrapper)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD_WRAPPER);
     DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, methodWrapper);
 
+    // new exprents and statements take their ids from the method's own counters
+    CounterContainer outerCounter = DecompilerContext.getCounterContainer();
+    DecompilerContext.setCounterContainer(methodWrapper.counter);
+
     try {
       boolean isInterface = cl.hasModifier(CodeConstants.ACC_INTERFACE);
       boolean isAnnotation = cl.hasModifier(CodeConstants.ACC_ANNOTATION);
-      boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+      boolean isEnum = cl.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum;
       boolean isDeprecated = mt.getAttributes().containsKey("Deprecated");
       boolean clinit = false, init = false, dinit = false;
 
@@ -668,7 +678,7 @@ public class ClassWriter {
       }
 
       GenericMethodDescriptor descriptor = null;
-      if (DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES)) {
+      if (DecompilerContext.getOptions().decompileGenericSignatures) {
         StructGenericSignatureAttribute attr = (StructGenericSignatureAttribute)mt.getAttributes().getWithKey("Signature");
         if (attr != null) {
           descriptor = GenericMain.parseMethodSignature(attr.getSignature());
@@ -754,7 +764,7 @@ public class ClassWriter {
 
               String typeName = GenericMain.getGenericCastTypeName(parameterType);
               if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeName) &&
-                  DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
+                  DecompilerContext.getOptions().undefinedParamTypeObject) {
                 typeName = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT);
               }
 
@@ -774,7 +784,7 @@ public class ClassWriter {
 
               String typeName = ExprProcessor.getCastTypeName(parameterType);
               if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeName) &&
-                  DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
+                  DecompilerContext.getOptions().undefinedParamTypeObject) {
                 typeName = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT);
               }
 
@@ -856,6 +866,7 @@ public class ClassWriter {
           catch (Throwable ex) {
             DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be written.", ex);
             methodWrapper.decompiledWithErrors = true;
+            DecompilerContext.getClassProcessor().reportMethodError();
           }
         }
 
@@ -875,6 +886,7 @@ public class ClassWriter {
     }
     finally {
       DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_WRAPPER, outerWrapper);
+      DecompilerContext.setCounterContainer(outerCounter);
     }
 
     // save total lines
@@ -885,7 +897,7 @@ public class ClassWriter {
   }
 
   private static boolean hideConstructor(ClassWrapper wrapper, boolean init, boolean throwsExceptions, int paramCount) {
-    if (!init || throwsExceptions || paramCount > 0 || !DecompilerContext.getOption(IFernflowerPreferences.HIDE_DEFAULT_CONSTRUCTOR)) {
+    if (!init || throwsExceptions || paramCount > 0 || !DecompilerContext.getOptions().hideDefaultConstructor) {
       return false;
     }
 
@@ -908,7 +920,7 @@ public class ClassWriter {
   private enum MType {CLASS, FIELD, METHOD}
 
   private static void appendRenameComment(TextBuffer buffer, String oldName, MType type, int indent) {
-    if (oldName == null || DecompilerContext.getOption(IFernflowerPreferences.NO_COMMENT_OUTPUT)) return;
+    if (oldName == null || DecompilerContext.getOptions().noCommentOutput) return;
 
     buffer.appendIndent(indent);
     buffer.append("// $FF: renamed from: ");
@@ -949,14 +961,14 @@ public class ClassWriter {
   private static String getTypePrintOut(VarType type) {
     String typeText = ExprProcessor.getCastTypeName(type, false);
     if (ExprProcessor.UNDEFINED_TYPE_STRING.equals(typeText) &&
-        DecompilerContext.getOption(IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT)) {
+        DecompilerContext.getOptions().undefinedParamTypeObject) {
       typeText = ExprProcessor.getCastTypeName(VarType.VARTYPE_OBJECT, false);
     }
     return typeText;
   }
 
   private static void appendComment(TextBuffer buffer, String comment, int indent) {
-	if(!DecompilerContext.getOption(IFernflowerPreferences.NO_COMMENT_OUTPUT))
+	if(!DecompilerContext.getOptions().noCommentOutput)
 		buffer.appendIndent(indent).append("// $FF: ").append(comment).appendLineSeparator();
   }
 
@@ -42,7 +42,13 @@ import java.util.Map.Entry;
 public class ClassesProcessor {
   public static final int AVERAGE_CLASS_SIZE = 16 * 1024;
 
-  private final Map<String, ClassNode> mapRootClasses = new HashMap<String, ClassNode>();
+  // fixed costs of a class and of a method in the decompilation estimate, in bytes of code
+  private static final int CLASS_COST = 512;
+  private static final int METHOD_COST = 64;
+
+  private final Map<String, ClassNode> mapRootClasses;
+  // set while a root class is written, when one of its methods couldn't be decompiled or written
+  private volatile boolean methodErrors;
 
   private static class Inner {
     private String simpleName;
@@ -55,12 +61,14 @@ public class ClassesProcessor {
   }
 
   public ClassesProcessor(StructContext context) {
+    mapRootClasses = new HashMap<String, ClassNode>();
+
     Map<String, Inner> mapInnerClasses = new HashMap<String, Inner>();
     Map<String, Set<String>> mapNestedClassReferences = new HashMap<String, Set<String>>();
     Map<String, Set<String>> mapEnclosingClassReferences = new HashMap<String, Set<String>>();
     Map<String, String> mapNewSimpleNames = new HashMap<String, String>();
 
-    boolean bDecompileInner = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_INNER);
+    boolean bDecompileInner = DecompilerContext.getOptions().decompileInner;
 
     // create class nodes
     for (StructClass cl : context.getClasses().values()) {
@@ -228,12 +236,46 @@ public class ClassesProcessor {
     }
   }
 
-  public void writeClass(StructClass cl, TextBuffer buffer) throws IOException {
+  // view for the writing of a single root class. Processing changes the nodes of the class, so it works on
+  // copies of them and the tree built from the context stays as it is. Other classes are found in that tree.
+  private ClassesProcessor(final Map<String, ClassNode> sharedClasses, ClassNode root) {
+    mapRootClasses = new HashMap<String, ClassNode>() {
+      @Override
+      public ClassNode get(Object key) {
+        ClassNode node = super.get(key);
+        return node != null ? node : sharedClasses.get(key);
+      }
+    };
+    root.copyTree(null, mapRootClasses);
+  }
+
+  // may be called for the same class any number of times, also by several threads at once. Returns false if
+  // a method of the class couldn't be decompiled, the text then holds a placeholder for it.
+  public boolean writeClass(StructClass cl, TextBuffer buffer) throws IOException {
     ClassNode root = mapRootClasses.get(cl.qualifiedName);
     if (root.type != ClassNode.CLASS_ROOT) {
-      return;
+      return true;
     }
 
+    ClassesProcessor processor = new ClassesProcessor(mapRootClasses, root);
+    ClassesProcessor previous = DecompilerContext.getClassProcessor();
+    DecompilerContext.setClassProcessor(processor);
+    try {
+      writeRoot(processor.mapRootClasses.get(cl.qualifiedName), buffer);
+    }
+    finally {
+      DecompilerContext.setClassProcessor(previous);
+    }
+    return !processor.methodErrors;
+  }
+
+  public void reportMethodError() {
+    methodErrors = true;
+  }
+
+  private static void writeRoot(ClassNode root, TextBuffer buffer) throws IOException {
+    StructClass cl = root.classStruct;
+
     DecompilerContext.getLogger().startReadingClass(cl.qualifiedName);
     try {
       ImportCollector importCollector = new ImportCollector(root);
@@ -276,13 +318,13 @@ public class ClassesProcessor {
 
       buffer.append(classBuffer);
 
-      if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
+      if (DecompilerContext.getOptions().bytecodeSourceMapping) {
         BytecodeSourceMapper mapper = DecompilerContext.getBytecodeSourceMapper();
         mapper.addTotalOffset(offsetLines);
         if (DecompilerContext.getOption(IFernflowerPreferences.DUMP_ORIGINAL_LINES)) {
           buffer.dumpOriginalLineNumbers(mapper.getOriginalLinesMapping());
         }
-        if (DecompilerContext.getOption(IFernflowerPreferences.UNIT_TEST_MODE)) {
+        if (DecompilerContext.getOptions().unitTestMode) {
           buffer.appendLineSeparator();
           mapper.dumpMapping(buffer, true);
         }
@@ -319,15 +361,37 @@ public class ClassesProcessor {
     }
   }
 
+  // the pool of the class is kept, other workers may still read it while they write the classes referring to it
   private static void destroyWrappers(ClassNode node) {
     node.wrapper = null;
-    node.classStruct.releaseResources();
 
     for (ClassNode nd : node.nested) {
       destroyWrappers(nd);
     }
   }
 
+  // rough estimate of the work needed to decompile a root class together with its nested classes
+  public long getClassCost(StructClass cl) {
+    ClassNode node = mapRootClasses.get(cl.qualifiedName);
+    return node == null ? 0 : getClassCost(node);
+  }
+
+  private static long getClassCost(ClassNode node) {
+    long cost = CLASS_COST;
+
+    if (node.type != ClassNode.CLASS_LAMBDA) {
+      for (StructMethod mt : node.classStruct.getMethods()) {
+        cost += METHOD_COST + mt.getCodeLength();
+      }
+    }
+
+    for (ClassNode nd : node.nested) {
+      cost += getClassCost(nd);
+    }
+
+    return cost;
+  }
+
   public Map<String, ClassNode> getMapRootClasses() {
     return mapRootClasses;
   }
@@ -417,6 +481,24 @@ public class ClassesProcessor {
       return node.wrapper;
     }
 
+    // copy of the node and its nested classes, registered in the map
+    private ClassNode copyTree(ClassNode parent, Map<String, ClassNode> map) {
+      ClassNode copy = new ClassNode(type, classStruct);
+      copy.access = access;
+      copy.simpleName = simpleName;
+      copy.enclosingMethod = enclosingMethod;
+      copy.anonymousClassType = anonymousClassType;
+      copy.enclosingClasses.addAll(enclosingClasses);
+      copy.parent = parent;
+      map.put(classStruct.qualifiedName, copy);
+
+      for (ClassNode nd : nested) {
+        copy.nested.add(nd.copyTree(copy, map));
+      }
+
+      return copy;
+    }
+
     public static class LambdaInformation {
       public String class_name;
       public String method_name;
@@ -24,6 +24,8 @@ import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.providers.IJavadocProvider;
 import de.fernflower.modules.renamer.PoolInterceptor;
 import de.fernflower.struct.StructContext;
+import de.fernflower.struct.gen.DescriptorCache;
+import de.fernflower.util.SymbolTable;
 
 import java.util.HashMap;
 import java.util.Locale;
@@ -41,6 +43,7 @@ public class DecompilerContext {
   private static final ThreadLocal<DecompilerContext> currentContext = new ThreadLocal<DecompilerContext>();
 
   private final Map<String, Object> properties;
+  private final Options options;
   private StructContext structContext;
   private ImportCollector importCollector;
   private VarNamesCollector varNamescollector;
@@ -50,9 +53,14 @@ public class DecompilerContext {
   private IFernflowerLogger logger;
   private BytecodeSourceMapper bytecodeSourceMapper;
   private IJavadocProvider javadocProvider;
+  private final SymbolTable symbolTable;
+  private final DescriptorCache descriptorCache;
 
-  private DecompilerContext(Map<String, Object> properties) {
+  private DecompilerContext(Map<String, Object> properties, Options options, SymbolTable symbolTable, DescriptorCache descriptorCache) {
     this.properties = properties;
+    this.options = options;
+    this.symbolTable = symbolTable;
+    this.descriptorCache = descriptorCache;
   }
 
   public static void initContext(Map<String, Object> propertiesCustom) {
@@ -60,7 +68,48 @@ public class DecompilerContext {
     if (propertiesCustom != null) {
       properties.putAll(propertiesCustom);
     }
-    currentContext.set(new DecompilerContext(properties));
+    currentContext.set(new DecompilerContext(properties, new Options(properties), new SymbolTable(), new DescriptorCache()));
+  }
+
+  // context for a worker thread: shares global collaborators, but has its own properties and collectors
+  public static DecompilerContext cloneContext(DecompilerContext context) {
+    DecompilerContext copy = new DecompilerContext(new HashMap<String, Object>(context.properties), context.options, context.symbolTable, context.descriptorCache);
+    copy.structContext = context.structContext;
+    copy.classProcessor = context.classProcessor;
+    copy.poolInterceptor = context.poolInterceptor;
+    copy.logger = context.logger;
+    copy.javadocProvider = context.javadocProvider;
+    copy.counterContainer = new CounterContainer();
+    return copy;
+  }
+
+  // copy for a task that goes on with the method of the calling thread. It works on copies of the collectors
+  // of the method, taken over by mergeMethodContext() only if the task finishes in time.
+  public static DecompilerContext cloneMethodContext(DecompilerContext context) {
+    DecompilerContext copy = cloneContext(context);
+    if (context.importCollector != null) {
+      copy.importCollector = new ImportCollector(context.importCollector);
+    }
+    if (context.varNamescollector != null) {
+      copy.varNamescollector = new VarNamesCollector();
+      copy.varNamescollector.addNames(context.varNamescollector);
+    }
+    if (context.counterContainer != null) {
+      copy.counterContainer.setCounters(context.counterContainer);
+    }
+    return copy;
+  }
+
+  public static void mergeMethodContext(DecompilerContext context, DecompilerContext methodContext) {
+    if (context.importCollector != null) {
+      context.importCollector.merge(methodContext.importCollector);
+    }
+    if (context.varNamescollector != null) {
+      context.varNamescollector.addNames(methodContext.varNamescollector);
+    }
+    if (context.counterContainer != null) {
+      context.counterContainer.setCounters(methodContext.counterContainer);
+    }
   }
 
   public static DecompilerContext getCurrentContext() {
@@ -83,6 +132,10 @@ public class DecompilerContext {
     return "1".equals(getCurrentContext().properties.get(key));
   }
 
+  public static Options getOptions() {
+    return getCurrentContext().options;
+  }
+
   public static ImportCollector getImportCollector() {
     return getCurrentContext().importCollector;
   }
@@ -161,6 +214,20 @@ public class DecompilerContext {
            IFernflowerPreferences.LINE_SEPARATOR_UNX : IFernflowerPreferences.LINE_SEPARATOR_WIN;
   }
 
+  // 0 means one thread per available processor
+  public static int getThreadCount() {
+    int threads = Integer.parseInt(getProperty(IFernflowerPreferences.THREADS).toString());
+    return threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+  }
+
+  public static SymbolTable getSymbolTable() {
+    return getCurrentContext().symbolTable;
+  }
+
+  public static DescriptorCache getDescriptorCache() {
+    return getCurrentContext().descriptorCache;
+  }
+
   public static IJavadocProvider getJavadocProvider() {
     return getCurrentContext().javadocProvider;
   }
@@ -168,4 +235,69 @@ public class DecompilerContext {
   public static void setJavadocProvider(IJavadocProvider javadocProvider) {
     getCurrentContext().javadocProvider = javadocProvider;
   }
+
+  // boolean options resolved once when the context is created, for the code that consults them per method or exprent
+  public static class Options {
+    public final boolean removeBridge;
+    public final boolean removeSynthetic;
+    public final boolean decompileInner;
+    public final boolean decompileClass14;
+    public final boolean decompileAssertions;
+    public final boolean hideEmptySuper;
+    public final boolean hideDefaultConstructor;
+    public final boolean decompileGenericSignatures;
+    public final boolean noExceptionsReturn;
+    public final boolean decompileEnum;
+    public final boolean removeGetClassNew;
+    public final boolean literalsAsIs;
+    public final boolean booleanTrueOne;
+    public final boolean asciiStringCharacters;
+    public final boolean syntheticNotSet;
+    public final boolean undefinedParamTypeObject;
+    public final boolean useDebugVarNames;
+    public final boolean removeEmptyRanges;
+    public final boolean finallyDeinline;
+    public final boolean ideaNotNullAnnotation;
+    public final boolean lambdaToAnonymousClass;
+    public final boolean bytecodeSourceMapping;
+    public final boolean parallelMethods;
+    public final boolean noCommentOutput;
+    public final boolean zipStored;
+    public final boolean librarySkipCode;
+    public final boolean unitTestMode;
+
+    private Options(Map<String, Object> properties) {
+      removeBridge = isSet(properties, IFernflowerPreferences.REMOVE_BRIDGE);
+      removeSynthetic = isSet(properties, IFernflowerPreferences.REMOVE_SYNTHETIC);
+      decompileInner = isSet(properties, IFernflowerPreferences.DECOMPILE_INNER);
+      decompileClass14 = isSet(properties, IFernflowerPreferences.DECOMPILE_CLASS_1_4);
+      decompileAssertions = isSet(properties, IFernflowerPreferences.DECOMPILE_ASSERTIONS);
+      hideEmptySuper = isSet(properties, IFernflowerPreferences.HIDE_EMPTY_SUPER);
+      hideDefaultConstructor = isSet(properties, IFernflowerPreferences.HIDE_DEFAULT_CONSTRUCTOR);
+      decompileGenericSignatures = isSet(properties, IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES);
+      noExceptionsReturn = isSet(properties, IFernflowerPreferences.NO_EXCEPTIONS_RETURN);
+      decompileEnum = isSet(properties, IFernflowerPreferences.DECOMPILE_ENUM);
+      removeGetClassNew = isSet(properties, IFernflowerPreferences.REMOVE_GET_CLASS_NEW);
+      literalsAsIs = isSet(properties, IFernflowerPreferences.LITERALS_AS_IS);
+      booleanTrueOne = isSet(properties, IFernflowerPreferences.BOOLEAN_TRUE_ONE);
+      asciiStringCharacters = isSet(properties, IFernflowerPreferences.ASCII_STRING_CHARACTERS);
+      syntheticNotSet = isSet(properties, IFernflowerPreferences.SYNTHETIC_NOT_SET);
+      undefinedParamTypeObject = isSet(properties, IFernflowerPreferences.UNDEFINED_PARAM_TYPE_OBJECT);
+      useDebugVarNames = isSet(properties, IFernflowerPreferences.USE_DEBUG_VAR_NAMES);
+      removeEmptyRanges = isSet(properties, IFernflowerPreferences.REMOVE_EMPTY_RANGES);
+      finallyDeinline = isSet(properties, IFernflowerPreferences.FINALLY_DEINLINE);
+      ideaNotNullAnnotation = isSet(properties, IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION);
+      lambdaToAnonymousClass = isSet(properties, IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS);
+      bytecodeSourceMapping = isSet(properties, IFernflowerPreferences.BYTECODE_SOURCE_MAPPING);
+      parallelMethods = isSet(properties, IFernflowerPreferences.PARALLEL_METHODS);
+      noCommentOutput = isSet(properties, IFernflowerPreferences.NO_COMMENT_OUTPUT);
+      zipStored = isSet(properties, IFernflowerPreferences.ZIP_STORED);
+      librarySkipCode = isSet(properties, IFernflowerPreferences.LIBRARY_SKIP_CODE);
+      unitTestMode = isSet(properties, IFernflowerPreferences.UNIT_TEST_MODE);
+    }
+
+    private static boolean isSet(Map<String, Object> properties, String key) {
+      return "1".equals(properties.get(key));
+    }
+  }
 }
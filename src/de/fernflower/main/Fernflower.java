@@ -27,37 +27,113 @@ import de.fernflower.struct.IDecompiledData;
 import de.fernflower.struct.StructClass;
 import de.fernflower.struct.StructContext;
 import de.fernflower.struct.lazy.LazyLoader;
+import de.fernflower.util.ArchiveHandlePool;
 
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class Fernflower implements IDecompiledData {
+  // total length of the sources kept by decompile(), in characters
+  private static final long SOURCE_CACHE_SIZE = 16L * 1024 * 1024;
 
   private final StructContext structContext;
+  private final DecompilerContext context;
   private ClassesProcessor classesProcessor;
+  private ResultCache resultCache;
+  private final Map<String, String> sourceCache = new LinkedHashMap<String, String>(16, 0.75f, true);
+  private long sourceCacheSize = 0;
 
   public Fernflower(IBytecodeProvider provider, IResultSaver saver, Map<String, Object> options, IFernflowerLogger logger, IJavadocProvider javadocProvider) {
-    structContext = new StructContext(saver, this, new LazyLoader(provider));
     DecompilerContext.initContext(options);
     DecompilerContext.setCounterContainer(new CounterContainer());
     DecompilerContext.setLogger(logger);
     DecompilerContext.setJavadocProvider(javadocProvider);
+    context = DecompilerContext.getCurrentContext();
+    structContext = new StructContext(saver, this, new LazyLoader(provider));
   }
 
   public void decompileContext() {
-    if (DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES)) {
-      new IdentifierConverter().rename(structContext);
+    prepareContext();
+    structContext.saveContext();
+  }
+
+  // renaming and the tree of classes, done once before the first class is written
+  private synchronized void prepareContext() {
+    if (classesProcessor != null) {
+      return;
     }
 
-    classesProcessor = new ClassesProcessor(structContext);
+    DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+    DecompilerContext.setCurrentContext(context);
+    try {
+      if (DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES)) {
+        new IdentifierConverter().rename(structContext);
+      }
+
+      ClassesProcessor classesProcessor = new ClassesProcessor(structContext);
 
-    DecompilerContext.setClassProcessor(classesProcessor);
-    DecompilerContext.setStructContext(structContext);
+      DecompilerContext.setClassProcessor(classesProcessor);
+      DecompilerContext.setStructContext(structContext);
 
-    structContext.saveContext();
+      resultCache = ResultCache.create();
+      this.classesProcessor = classesProcessor;
+    }
+    finally {
+      DecompilerContext.setCurrentContext(threadContext);
+    }
+  }
+
+  // The source of a single root class of the loaded sources, or null if there is no such class. Nothing is saved,
+  // only the class itself is written. May be called on any thread, also after or instead of decompileContext().
+  public String decompile(String qualifiedName) {
+    synchronized (sourceCache) {
+      String source = sourceCache.get(qualifiedName);
+      if (source != null) {
+        return source;
+      }
+    }
+
+    prepareContext();
+
+    ClassNode node = classesProcessor.getMapRootClasses().get(qualifiedName);
+    if (node == null || node.type != ClassNode.CLASS_ROOT || !node.classStruct.isOwn()) {
+      return null;
+    }
+
+    DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+    DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(context));
+    String source;
+    try {
+      CharSequence text = getClassText(node.classStruct);
+      if (text == null) {
+        return null;
+      }
+      source = text.toString();
+    }
+    finally {
+      DecompilerContext.setCurrentContext(threadContext);
+    }
+
+    synchronized (sourceCache) {
+      String previous = sourceCache.put(qualifiedName, source);
+      sourceCacheSize += source.length() - (previous == null ? 0 : previous.length());
+
+      // least recently used sources are dropped first, the new one is always kept
+      Iterator<String> iterator = sourceCache.values().iterator();
+      while (sourceCacheSize > SOURCE_CACHE_SIZE && sourceCache.size() > 1) {
+        sourceCacheSize -= iterator.next().length();
+        iterator.remove();
+      }
+    }
+
+    return source;
   }
 
   public void clearContext() {
     DecompilerContext.setCurrentContext(null);
+    ArchiveHandlePool.getInstance().closeUnused();
   }
 
   public StructContext getStructContext() {
@@ -83,15 +159,61 @@ public class Fernflower implements IDecompiledData {
 
   @Override
   public String getClassContent(StructClass cl) {
+    CharSequence text = getClassText(cl);
+    return text == null ? null : text.toString();
+  }
+
+  @Override
+  public CharSequence getClassText(StructClass cl) {
+    String key = getCacheKey(cl);
+    if (key != null) {
+      String text = resultCache.get(key);
+      if (text != null) {
+        return text;
+      }
+    }
+
+    return writeClass(cl, key);
+  }
+
+  @Override
+  public CharSequence getFreshClassText(StructClass cl) {
+    return writeClass(cl, null);
+  }
+
+  // a class with a method that couldn't be decompiled, e.g. in the time limit, isn't cached and is tried again
+  // in the next run, which also logs its errors again
+  private CharSequence writeClass(StructClass cl, String cacheKey) {
+    TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
+    boolean complete;
     try {
-      TextBuffer buffer = new TextBuffer(ClassesProcessor.AVERAGE_CLASS_SIZE);
       buffer.append(DecompilerContext.getProperty(IFernflowerPreferences.BANNER).toString());
-      classesProcessor.writeClass(cl, buffer);
-      return buffer.toString();
+      complete = classesProcessor.writeClass(cl, buffer);
     }
     catch (Throwable ex) {
       DecompilerContext.getLogger().writeMessage("Class " + cl.qualifiedName + " couldn't be fully decompiled.", ex);
       return null;
     }
+
+    CharSequence text = buffer.getText();
+    if (complete && cacheKey != null) {
+      resultCache.put(cacheKey, text);
+    }
+    return text;
+  }
+
+  private String getCacheKey(StructClass cl) {
+    ClassNode node = classesProcessor.getMapRootClasses().get(cl.qualifiedName);
+    if (resultCache == null || node == null || node.type != ClassNode.CLASS_ROOT) {
+      return null;
+    }
+
+    try {
+      return resultCache.getKey(node);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Class " + cl.qualifiedName + " couldn't be looked up in the cache.", ex);
+      return null;
+    }
   }
 }
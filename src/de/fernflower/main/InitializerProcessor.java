@@ -17,7 +17,6 @@ package de.fernflower.main;
 
 import de.fernflower.code.CodeConstants;
 import de.fernflower.main.ClassesProcessor.ClassNode;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.rels.ClassWrapper;
 import de.fernflower.main.rels.MethodWrapper;
 import de.fernflower.modules.decompiler.exps.*;
@@ -47,7 +46,7 @@ public class InitializerProcessor {
     // This can happen if InnerClasses attributes are erased
     liftConstructor(wrapper);
     
-    if (DecompilerContext.getOption(IFernflowerPreferences.HIDE_EMPTY_SUPER)) {
+    if (DecompilerContext.getOptions().hideEmptySuper) {
       hideEmptySuper(wrapper);
     }
   }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2000-2015 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.main;
+
+import de.fernflower.code.CodeConstants;
+import de.fernflower.main.ClassesProcessor.ClassNode;
+import de.fernflower.main.extern.IFernflowerLogger;
+import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.struct.StructClass;
+import de.fernflower.struct.StructContext;
+import de.fernflower.struct.StructField;
+import de.fernflower.struct.StructMethod;
+import de.fernflower.struct.consts.ConstantPool;
+import de.fernflower.struct.consts.PooledConstant;
+import de.fernflower.struct.consts.PrimitiveConstant;
+import de.fernflower.util.DataInputBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Decompiled text of root classes kept between runs. A class is looked up by a hash of everything its text depends on:
+// the bytes of the class and its nested classes, the options, and the members, hierarchy and nesting of every class
+// it refers to, including the classes that could shadow their short names.
+public class ResultCache {
+  // to be raised whenever the decompiler output changes
+  private static final int VERSION = 1;
+  // hashed in place of a class that is met again in its own cyclic hierarchy
+  private static final byte[] CYCLE_HASH = "cycle".getBytes(StandardCharsets.UTF_8);
+
+  // options that don't change the text of a class
+  private static final Set<String> IGNORED_OPTIONS = new HashSet<String>(Arrays.asList(
+    IFernflowerPreferences.LOG_LEVEL, IFernflowerPreferences.THREADS, IFernflowerPreferences.PARALLEL_METHODS,
+    IFernflowerPreferences.CHECK_DETERMINISM, IFernflowerPreferences.ZIP_COMPRESSION_LEVEL, IFernflowerPreferences.ZIP_STORED,
+    IFernflowerPreferences.LIBRARY_SUMMARY_DIR, IFernflowerPreferences.RESULT_CACHE_DIR));
+
+  private final File directory;
+  private final byte[] optionsHash;
+  private final Map<String, byte[]> classHashes = new HashMap<String, byte[]>();
+  // classes being hashed, and the number of times one of them was met again in its own hierarchy
+  private final Set<String> hashedClasses = new HashSet<String>();
+  private int hashCycles = 0;
+
+  private ResultCache(File directory, byte[] optionsHash) {
+    this.directory = directory;
+    this.optionsHash = optionsHash;
+  }
+
+  // null if there is no cache directory, or if the text of a class depends on more than can be hashed: renamed
+  // classes are named after all other classes, and line mappings are collected while a class is written
+  public static ResultCache create() {
+    String directory = (String)DecompilerContext.getProperty(IFernflowerPreferences.RESULT_CACHE_DIR);
+    if (directory == null || directory.isEmpty() ||
+        DecompilerContext.getOption(IFernflowerPreferences.RENAME_ENTITIES) ||
+        DecompilerContext.getOption(IFernflowerPreferences.DUMP_ORIGINAL_LINES) ||
+        DecompilerContext.getOptions().bytecodeSourceMapping) {
+      return null;
+    }
+
+    MessageDigest digest = newDigest();
+    update(digest, VERSION);
+    for (String key : new TreeSet<String>(IFernflowerPreferences.DEFAULTS.keySet())) {
+      if (!IGNORED_OPTIONS.contains(key)) {
+        update(digest, key);
+        update(digest, String.valueOf(DecompilerContext.getProperty(key)));
+      }
+    }
+
+    return new ResultCache(new File(directory), digest.digest());
+  }
+
+  public String getKey(ClassNode root) throws IOException {
+    StructContext context = DecompilerContext.getStructContext();
+
+    List<ClassNode> nodes = new ArrayList<ClassNode>();
+    collectNodes(root, nodes);
+
+    MessageDigest digest = newDigest();
+    digest.update(optionsHash);
+
+    Set<String> own = new HashSet<String>();
+    Set<String> referenced = new TreeSet<String>();
+    for (ClassNode node : nodes) {
+      StructClass cl = node.classStruct;
+      own.add(cl.qualifiedName);
+
+      update(digest, cl.qualifiedName);
+      update(digest, node.type);
+      update(digest, node.access);
+      update(digest, String.valueOf(node.simpleName));
+      update(digest, String.valueOf(node.enclosingMethod));
+
+      DataInputBuffer in = cl.getLoader().getClassBuffer(cl.qualifiedName);
+      byte[] bytes = new byte[in.length()];
+      in.readFully(bytes);
+      digest.update(bytes);
+
+      collectReferencedClasses(cl.getPool(), referenced);
+    }
+
+    String packageSlash = root.classStruct.qualifiedName.substring(0, root.classStruct.qualifiedName.lastIndexOf('/') + 1);
+    Set<String> shortNames = new TreeSet<String>();
+
+    for (String name : referenced) {
+      if (!own.contains(name)) {
+        update(digest, name);
+        digest.update(getClassHash(context, name));
+      }
+      // any part of a nested name may become a short name, see ImportCollector.getShortName()
+      shortNames.addAll(Arrays.asList(name.substring(name.lastIndexOf('/') + 1).split("\\$")));
+    }
+
+    for (String name : shortNames) {
+      update(digest, name);
+      update(digest, context.getClass(packageSlash + name) != null ? 1 : 0);
+      update(digest, context.getClass(name) != null ? 1 : 0);
+    }
+
+    return toHex(digest.digest());
+  }
+
+  public String get(String key) {
+    File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+
+    try {
+      return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot read cached class: " + file, IFernflowerLogger.Severity.WARN);
+      return null;
+    }
+  }
+
+  public void put(String key, CharSequence text) {
+    File file = getFile(key);
+    Path temp = null;
+
+    try {
+      file.getParentFile().mkdirs();
+      // a unique name, also other processes may write the same class into the directory
+      temp = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+      Writer out = new OutputStreamWriter(Files.newOutputStream(temp), StandardCharsets.UTF_8);
+      try {
+        out.append(text);
+      }
+      finally {
+        out.close();
+      }
+      Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot write cached class: " + file, IFernflowerLogger.Severity.WARN);
+      if (temp != null) {
+        temp.toFile().delete();
+      }
+    }
+  }
+
+  private File getFile(String key) {
+    return new File(new File(directory, key.substring(0, 2)), key.substring(2));
+  }
+
+  private static void collectNodes(ClassNode node, List<ClassNode> nodes) {
+    // lambdas are methods of their class
+    if (node.type != ClassNode.CLASS_LAMBDA) {
+      nodes.add(node);
+    }
+    for (ClassNode nested : node.nested) {
+      collectNodes(nested, nodes);
+    }
+  }
+
+  // classes of the pool and every class named in a descriptor or signature
+  private static void collectReferencedClasses(ConstantPool pool, Set<String> names) {
+    for (int i = 1; i < pool.size(); i++) {
+      PooledConstant constant = pool.getConstant(i);
+      if (constant == null) {
+        continue;
+      }
+
+      if (constant.type == CodeConstants.CONSTANT_Class) {
+        String name = ((PrimitiveConstant)constant).getString();
+        if (!name.startsWith("[")) {
+          names.add(name);
+        }
+      }
+      else if (constant.type == CodeConstants.CONSTANT_Utf8) {
+        String value = ((PrimitiveConstant)constant).getString();
+        int start = value.indexOf('L');
+        while (start >= 0) {
+          int end = value.indexOf(';', start);
+          if (end < 0) {
+            break;
+          }
+          int generic = value.indexOf('<', start);
+          names.add(value.substring(start + 1, generic >= 0 && generic < end ? generic : end));
+          start = value.indexOf('L', end);
+        }
+      }
+    }
+  }
+
+  // members and nesting of a referenced class and of its super classes and interfaces
+  private synchronized byte[] getClassHash(StructContext context, String name) {
+    byte[] hash = classHashes.get(name);
+    if (hash != null) {
+      return hash;
+    }
+    // a cyclic hierarchy is cut where it meets a class again. The hashes of the classes below depend on the class
+    // the cycle was entered at, so they are not kept, and the key doesn't depend on the order classes are hashed in.
+    if (!hashedClasses.add(name)) {
+      hashCycles++;
+      return CYCLE_HASH;
+    }
+    int cycles = hashCycles;
+
+    MessageDigest digest = newDigest();
+    StructClass cl = context.getClass(name);
+    if (cl != null) {
+      update(digest, cl.getAccessFlags());
+      update(digest, cl.isOwn() ? 1 : 0);
+
+      for (StructField field : cl.getFields()) {
+        update(digest, field.getAccessFlags());
+        update(digest, field.getName());
+        update(digest, field.getDescriptor());
+      }
+      for (StructMethod method : cl.getMethods()) {
+        update(digest, method.getAccessFlags());
+        update(digest, method.getName());
+        update(digest, method.getDescriptor());
+      }
+
+      ClassNode node = DecompilerContext.getClassProcessor().getMapRootClasses().get(name);
+      while (node != null) {
+        update(digest, node.type);
+        update(digest, String.valueOf(node.simpleName));
+        node = node.parent;
+      }
+
+      if (cl.superClass != null) {
+        update(digest, cl.superClass.getString());
+        digest.update(getClassHash(context, cl.superClass.getString()));
+      }
+      for (String interfaceName : cl.getInterfaceNames()) {
+        update(digest, interfaceName);
+        digest.update(getClassHash(context, interfaceName));
+      }
+    }
+
+    hash = digest.digest();
+    hashedClasses.remove(name);
+    if (cycles == hashCycles) {
+      classHashes.put(name, hash);
+    }
+    return hash;
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    update(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void update(MessageDigest digest, int value) {
+    digest.update(new byte[]{(byte)(value >>> 24), (byte)(value >>> 16), (byte)(value >>> 8), (byte)value});
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return builder.toString();
+  }
+}
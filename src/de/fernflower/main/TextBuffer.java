@@ -91,14 +91,19 @@ public class TextBuffer {
 
   @Override
   public String toString() {
-    String original = myStringBuilder.toString();
+    return getText().toString();
+  }
+
+  // the final text, without copying it if there is no line mapping. The view is only valid until the buffer is changed.
+  public CharSequence getText() {
     if (myLineToOffsetMapping == null || myLineToOffsetMapping.isEmpty()) {
       if (myLineMapping != null) {
         return addOriginalLineNumbers();
       }
-      return original;
+      return myStringBuilder;
     }
     else {
+      String original = myStringBuilder.toString();
       StringBuilder res = new StringBuilder();
       String[] srcLines = original.split(myLineSeparator);
       int currentLineStartOffset = 0;
@@ -128,17 +133,17 @@ public class TextBuffer {
         appendLines(res, srcLines, previousMarkLine, srcLines.length, srcLines.length - previousMarkLine);
       }
 
-      return res.toString();
+      return res;
     }
   }
 
-  private String addOriginalLineNumbers() {
-    StringBuilder sb = new StringBuilder();
+  private StringBuilder addOriginalLineNumbers() {
+    StringBuilder sb = new StringBuilder(myStringBuilder.length() + myStringBuilder.length() / 8);
     int lineStart = 0, lineEnd;
     int count = 0, length = myLineSeparator.length();
     while ((lineEnd = myStringBuilder.indexOf(myLineSeparator, lineStart)) > 0) {
       ++count;
-      sb.append(myStringBuilder.substring(lineStart, lineEnd));
+      sb.append(myStringBuilder, lineStart, lineEnd);
       Set<Integer> integers = myLineMapping.get(count);
       if (integers != null) {
         sb.append("//");
@@ -150,9 +155,9 @@ public class TextBuffer {
       lineStart = lineEnd + length;
     }
     if (lineStart < myStringBuilder.length()) {
-      sb.append(myStringBuilder.substring(lineStart));
+      sb.append(myStringBuilder, lineStart, myStringBuilder.length());
     }
-    return sb.toString();
+    return sb;
   }
 
   private void appendLines(StringBuilder res, String[] srcLines, int from, int to, int requiredLineNumber) {
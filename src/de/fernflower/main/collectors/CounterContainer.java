@@ -34,4 +34,8 @@ public class CounterContainer {
   public int getCounterAndIncrement(int counter) {
     return values[counter]++;
   }
+
+  public void setCounters(CounterContainer counters) {
+    System.arraycopy(counters.values, 0, values, 0, values.length);
+  }
 }
@@ -45,6 +45,20 @@ public class ImportCollector {
     }
   }
 
+  // a copy for a method processed on another thread, see merge()
+  public ImportCollector(ImportCollector collector) {
+    mapSimpleNames.putAll(collector.mapSimpleNames);
+    setNotImportedNames.addAll(collector.setNotImportedNames);
+    currentPackageSlash = collector.currentPackageSlash;
+    currentPackagePoint = collector.currentPackagePoint;
+  }
+
+  // takes over the names of a copy, which started out with the names of this collector
+  public void merge(ImportCollector collector) {
+    mapSimpleNames.putAll(collector.mapSimpleNames);
+    setNotImportedNames.addAll(collector.setNotImportedNames);
+  }
+
   public String getShortName(String fullname) {
     return getShortName(fullname, true);
   }
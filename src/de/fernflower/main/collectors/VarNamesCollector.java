@@ -34,6 +34,10 @@ public class VarNamesCollector {
     usedNames.add(value);
   }
 
+  public void addNames(VarNamesCollector collector) {
+    usedNames.addAll(collector.usedNames);
+  }
+
   public String getFreeName(int index, VarType type) {
     return getFreeName(type.getTypeName() + index);
   }
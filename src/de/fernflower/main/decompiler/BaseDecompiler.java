@@ -41,6 +41,11 @@ public class BaseDecompiler {
     fernflower.getStructContext().addSpace(file, isOwn);
   }
 
+  // see Fernflower.decompile()
+  public String decompile(String qualifiedName) {
+    return fernflower.decompile(qualifiedName);
+  }
+
   public void decompileContext() {
     try {
       fernflower.decompileContext();
@@ -19,20 +19,22 @@ import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.Fernflower;
 import de.fernflower.main.extern.IBytecodeProvider;
 import de.fernflower.main.extern.IFernflowerLogger;
+import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.extern.IResultSaver;
 import de.fernflower.main.providers.IJavadocProvider;
 import de.fernflower.main.providers.RetroMCPJavadocProvider;
+import de.fernflower.util.ArchiveHandlePool;
 import de.fernflower.util.InterpreterUtil;
+import de.fernflower.util.ZipArchiveWriter;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.function.Function;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
@@ -159,7 +161,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   private final File root;
   private final Fernflower fernflower;
-  private final Map<String, ZipOutputStream> mapArchiveStreams = new HashMap<String, ZipOutputStream>();
+  private final Map<String, ZipArchiveWriter> mapArchiveStreams = new HashMap<String, ZipArchiveWriter>();
   private final Map<String, Set<String>> mapArchiveEntries = new HashMap<String, Set<String>>();
 
   @SuppressWarnings("UseOfSystemOutOrSystemErr")
@@ -184,6 +186,16 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     fernflower.getStructContext().addSpace(file, isOwn);
   }
 
+  // classes missing in this decompiler are looked up in the libraries of the other one
+  void setLibraries(ConsoleDecompiler libraries) {
+    fernflower.getStructContext().setLibraryContext(libraries.fernflower.getStructContext());
+  }
+
+  // see Fernflower.decompile()
+  public String decompile(String qualifiedName) {
+    return fernflower.decompile(qualifiedName);
+  }
+
   public void decompileContext() {
     try {
       fernflower.decompileContext();
@@ -204,8 +216,9 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
       return InterpreterUtil.getBytes(file);
     }
     else {
-      ZipFile archive = new ZipFile(file);
+      ArchiveHandlePool.Handle handle = ArchiveHandlePool.getInstance().acquire(file);
       try {
+        ZipFile archive = handle.getArchive();
         ZipEntry entry = archive.getEntry(internalPath);
         if (entry == null) {
           throw new IOException("Entry not found: " + internalPath);
@@ -213,11 +226,23 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
         return InterpreterUtil.getBytes(archive, entry);
       }
       finally {
-        archive.close();
+        handle.close();
       }
     }
   }
 
+  // small files are cheaper to read than to map
+  private static final long MIN_MAPPED_FILE_SIZE = 16 * 1024;
+
+  @Override
+  public ByteBuffer getBytecodeBuffer(String externalPath, String internalPath) throws IOException {
+    File file = new File(externalPath);
+    if (internalPath == null && file.length() >= MIN_MAPPED_FILE_SIZE) {
+      return InterpreterUtil.mapFile(file);
+    }
+    return IBytecodeProvider.super.getBytecodeBuffer(externalPath, internalPath);
+  }
+
   // *******************************************************************
   // Interface IResultSaver
   // *******************************************************************
@@ -246,11 +271,16 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+    saveClassFile(path, qualifiedName, entryName, (CharSequence)content, mapping);
+  }
+
+  @Override
+  public void saveClassFile(String path, String qualifiedName, String entryName, CharSequence content, int[] mapping) {
     File file = new File(getAbsolutePath(path), entryName);
     try {
       Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
       try {
-        out.write(content);
+        InterpreterUtil.writeText(out, content);
       }
       finally {
         out.close();
@@ -269,9 +299,8 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
         throw new IOException("Cannot create file " + file);
       }
 
-      FileOutputStream fileStream = new FileOutputStream(file);
       @SuppressWarnings("IOResourceOpenedButNotSafelyClosed")
-      ZipOutputStream zipStream = manifest != null ? new JarOutputStream(fileStream, manifest) : new ZipOutputStream(fileStream);
+      ZipArchiveWriter zipStream = createArchiveWriter(file, manifest);
       mapArchiveStreams.put(file.getPath(), zipStream);
     }
     catch (IOException ex) {
@@ -279,6 +308,13 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     }
   }
 
+  // entries are compressed as set by zcl and zst, on as many threads as classes are decompiled on
+  static ZipArchiveWriter createArchiveWriter(File file, Manifest manifest) throws IOException {
+    int level = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.ZIP_COMPRESSION_LEVEL).toString());
+    boolean stored = DecompilerContext.getOptions().zipStored;
+    return new ZipArchiveWriter(new FileOutputStream(file), manifest, level, stored, DecompilerContext.getThreadCount());
+  }
+
   @Override
   public void saveDirEntry(String path, String archiveName, String entryName) {
     saveClassEntry(path, archiveName, null, entryName, null);
@@ -293,19 +329,13 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     }
 
     try {
-      ZipFile srcArchive = new ZipFile(new File(source));
+      ArchiveHandlePool.Handle handle = ArchiveHandlePool.getInstance().acquire(new File(source));
       try {
-        ZipEntry entry = srcArchive.getEntry(entryName);
-        if (entry != null) {
-          InputStream in = srcArchive.getInputStream(entry);
-          ZipOutputStream out = mapArchiveStreams.get(file);
-          out.putNextEntry(new ZipEntry(entryName));
-          InterpreterUtil.copyStream(in, out);
-          in.close();
-        }
+        // compressed entries are copied as they are, without inflating them
+        mapArchiveStreams.get(file).copyEntry(handle, entryName);
       }
       finally {
-        srcArchive.close();
+        handle.close();
       }
     }
     catch (IOException ex) {
@@ -316,6 +346,11 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
 
   @Override
   public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+    saveClassEntry(path, archiveName, qualifiedName, entryName, (CharSequence)content);
+  }
+
+  @Override
+  public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, CharSequence content) {
     String file = new File(getAbsolutePath(path), archiveName).getPath();
 
     if (!checkEntry(entryName, file)) {
@@ -323,11 +358,7 @@ public class ConsoleDecompiler implements IBytecodeProvider, IResultSaver {
     }
 
     try {
-      ZipOutputStream out = mapArchiveStreams.get(file);
-      out.putNextEntry(new ZipEntry(entryName));
-      if (content != null) {
-        out.write(content.getBytes(StandardCharsets.UTF_8));
-      }
+      mapArchiveStreams.get(file).writeTextEntry(entryName, content);
     }
     catch (IOException ex) {
       String message = "Cannot write entry " + entryName + " to " + file;
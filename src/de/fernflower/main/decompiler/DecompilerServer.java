@@ -0,0 +1,260 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.main.decompiler;
+
+import de.fernflower.main.extern.IFernflowerPreferences;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Manifest;
+
+// Decompiles requests read line by line from stdin or a local socket, with the libraries given at start kept loaded
+// between them. A request is a line of tab-separated arguments, options first:
+//
+//   [-<option>=<value>]* [-e=<library>]* [<source>]+
+//
+// The options override the ones of the server for this request only. Every request is decompiled by a decompiler
+// of its own, only the library classes are shared. The answer is, for every decompiled class,
+//
+//   class <tab> <path> <tab> <length in bytes> <newline> <UTF-8 text> <newline>
+//
+// followed by "done <tab> <count of classes>" or "error <tab> <message>" on a line of its own.
+public class DecompilerServer {
+
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  public static void main(String[] args) throws IOException {
+    Map<String, Object> options = new HashMap<String, Object>();
+    List<File> libraries = new ArrayList<File>();
+    int port = -1;
+
+    for (String arg : args) {
+      if (arg.startsWith("--port=")) {
+        port = Integer.parseInt(arg.substring(7));
+      }
+      else if (!parseArgument(arg, options, libraries, null)) {
+        System.err.println("error: unexpected argument '" + arg + "'");
+        return;
+      }
+    }
+
+    DecompilerServer server = new DecompilerServer(options, libraries);
+
+    if (port < 0) {
+      server.serve(System.in, System.out);
+    }
+    else {
+      ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+      try {
+        while (true) {
+          Socket socket = serverSocket.accept();
+          try {
+            server.serve(socket.getInputStream(), socket.getOutputStream());
+          }
+          catch (IOException ex) {
+            System.err.println("warn: connection closed: " + ex.getMessage());
+          }
+          finally {
+            socket.close();
+          }
+        }
+      }
+      finally {
+        serverSocket.close();
+      }
+    }
+  }
+
+  // options, libraries and, if a list is given, sources; false if the argument is none of them
+  private static boolean parseArgument(String arg, Map<String, Object> options, List<File> libraries, List<File> sources) {
+    if (arg.startsWith("-e=")) {
+      libraries.add(new File(arg.substring(3)));
+    }
+    else if (arg.length() > 5 && arg.charAt(0) == '-' && arg.charAt(4) == '=') {
+      String value = arg.substring(5);
+      if ("true".equalsIgnoreCase(value)) {
+        value = "1";
+      }
+      else if ("false".equalsIgnoreCase(value)) {
+        value = "0";
+      }
+      options.put(arg.substring(1, 4), value);
+    }
+    else if (sources != null) {
+      sources.add(new File(arg));
+    }
+    else {
+      return false;
+    }
+    return true;
+  }
+
+  private final Map<String, Object> options;
+  private final List<File> libraryFiles;
+  private final ConsoleDecompiler libraries;
+
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  public DecompilerServer(Map<String, Object> options, List<File> libraryFiles) {
+    this.options = options;
+    this.libraryFiles = libraryFiles;
+
+    // never decompiles anything, only holds the library classes
+    libraries = new ConsoleDecompiler(new File("."), options, new PrintStreamLogger(System.err));
+    for (File library : libraryFiles) {
+      libraries.addSpace(library, false);
+    }
+  }
+
+  public void serve(InputStream input, OutputStream output) throws IOException {
+    BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (!line.trim().isEmpty()) {
+        decompile(line.split("\t"), out);
+        out.flush();
+      }
+    }
+  }
+
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  private void decompile(String[] args, Writer out) throws IOException {
+    Map<String, Object> requestOptions = new HashMap<String, Object>(options);
+    List<File> requestLibraries = new ArrayList<File>();
+    List<File> sources = new ArrayList<File>();
+    for (String arg : args) {
+      parseArgument(arg, requestOptions, requestLibraries, sources);
+    }
+
+    if (sources.isEmpty()) {
+      out.write("error\tno sources given\n");
+      return;
+    }
+
+    RequestDecompiler decompiler = new RequestDecompiler(requestOptions, out);
+    try {
+      // renamed and differently parsed libraries can't be shared, they are loaded again for the request
+      if (sharesLibraries(requestOptions)) {
+        decompiler.setLibraries(libraries);
+      }
+      else {
+        requestLibraries.addAll(0, libraryFiles);
+      }
+
+      for (File source : sources) {
+        decompiler.addSpace(source, true);
+      }
+      for (File library : requestLibraries) {
+        decompiler.addSpace(library, false);
+      }
+
+      decompiler.decompileContext();
+    }
+    catch (RuntimeException ex) {
+      ex.printStackTrace(System.err);
+      out.write("error\t" + String.valueOf(ex.getMessage()).replace('\n', ' ') + "\n");
+      return;
+    }
+
+    out.write("done\t" + decompiler.classCount + "\n");
+  }
+
+  private boolean sharesLibraries(Map<String, Object> requestOptions) {
+    String skipCode = IFernflowerPreferences.LIBRARY_SKIP_CODE;
+    return !"1".equals(requestOptions.get(IFernflowerPreferences.RENAME_ENTITIES)) &&
+           String.valueOf(getOption(requestOptions, skipCode)).equals(String.valueOf(getOption(options, skipCode)));
+  }
+
+  private static Object getOption(Map<String, Object> options, String key) {
+    return options.containsKey(key) ? options.get(key) : IFernflowerPreferences.DEFAULTS.get(key);
+  }
+
+  // writes the decompiled classes of a request into the answer, nothing is saved to disk
+  private static class RequestDecompiler extends ConsoleDecompiler {
+    private final Writer out;
+    private int classCount = 0;
+
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    private RequestDecompiler(Map<String, Object> options, Writer out) {
+      super(new File("."), options, new PrintStreamLogger(System.err), SaveType.LEGACY_CONSOLEDECOMPILER);
+      this.out = out;
+    }
+
+    private void writeClass(String path, CharSequence content) {
+      if (content == null) {
+        return;
+      }
+
+      String text = content.toString();
+      try {
+        out.write("class\t" + path + "\t" + text.getBytes(StandardCharsets.UTF_8).length + "\n");
+        out.write(text);
+        out.write("\n");
+      }
+      catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+      classCount++;
+    }
+
+    private static String join(String path, String name) {
+      return path.isEmpty() ? name : path + "/" + name;
+    }
+
+    @Override
+    public void saveFolder(String path) { }
+
+    @Override
+    public void copyFile(String source, String path, String entryName) { }
+
+    @Override
+    public void saveClassFile(String path, String qualifiedName, String entryName, CharSequence content, int[] mapping) {
+      writeClass(join(path, entryName), content);
+    }
+
+    @Override
+    public void createArchive(String path, String archiveName, Manifest manifest) { }
+
+    @Override
+    public void saveDirEntry(String path, String archiveName, String entryName) { }
+
+    @Override
+    public void copyEntry(String source, String path, String archiveName, String entryName) { }
+
+    @Override
+    public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, CharSequence content) {
+      writeClass(join(path, archiveName) + "!/" + entryName, content);
+    }
+
+    @Override
+    public void closeArchive(String path, String archiveName) { }
+  }
+}
@@ -13,6 +13,7 @@ import java.util.zip.ZipFile;
 
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.extern.IResultSaver;
+import de.fernflower.util.ArchiveHandlePool;
 import de.fernflower.util.InterpreterUtil;
 
 public final class DirectoryResultSaver implements IResultSaver {
@@ -24,11 +25,16 @@ public final class DirectoryResultSaver implements IResultSaver {
 
   @Override
   public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+    saveClassEntry(path, archiveName, qualifiedName, entryName, (CharSequence)content);
+  }
+
+  @Override
+  public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, CharSequence content) {
     Path entryPath = this.root.resolve(entryName);
 
     try (BufferedWriter writer = Files.newBufferedWriter(entryPath)) {
       if (content != null) {
-        writer.write(content);
+        InterpreterUtil.writeText(writer, content);
       }
       writer.close();
     } catch (IOException e) {
@@ -73,13 +79,18 @@ public final class DirectoryResultSaver implements IResultSaver {
 
   @Override
   public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+    saveClassFile(path, qualifiedName, entryName, (CharSequence)content, mapping);
+  }
+
+  @Override
+  public void saveClassFile(String path, String qualifiedName, String entryName, CharSequence content, int[] mapping) {
     Path entryPath = this.root.resolve(path).resolve(entryName);
 
     try {
       Files.createDirectories(entryPath.getParent());
       BufferedWriter writer = Files.newBufferedWriter(entryPath);
       if (content != null) {
-        writer.write(content);
+        InterpreterUtil.writeText(writer, content);
       }
       writer.close();
     } catch (IOException e) {
@@ -89,7 +100,8 @@ public final class DirectoryResultSaver implements IResultSaver {
 
   @Override
   public void copyEntry(String source, String path, String archiveName, String entryName) {
-    try (ZipFile srcArchive = new ZipFile(new File(source))) {
+    try (ArchiveHandlePool.Handle handle = ArchiveHandlePool.getInstance().acquire(new File(source))) {
+      ZipFile srcArchive = handle.getArchive();
       ZipEntry entry = srcArchive.getEntry(entryName);
       if (entry != null) {
         try (InputStream in = srcArchive.getInputStream(entry)) {
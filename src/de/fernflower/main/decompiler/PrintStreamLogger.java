@@ -31,14 +31,14 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void writeMessage(String message, Severity severity) {
+  public synchronized void writeMessage(String message, Severity severity) {
     if (accepts(severity)) {
       stream.println(severity.prefix + InterpreterUtil.getIndentString(indent) + message);
     }
   }
 
   @Override
-  public void writeMessage(String message, Throwable t) {
+  public synchronized void writeMessage(String message, Throwable t) {
     if (accepts(Severity.ERROR)) {
       writeMessage(message, Severity.ERROR);
       t.printStackTrace(stream);
@@ -46,7 +46,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void startReadingClass(String className) {
+  public synchronized void startReadingClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Decompiling class " + className, Severity.INFO);
       ++indent;
@@ -54,7 +54,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void endReadingClass() {
+  public synchronized void endReadingClass() {
     if (accepts(Severity.INFO)) {
       --indent;
       writeMessage("... done", Severity.INFO);
@@ -62,7 +62,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void startClass(String className) {
+  public synchronized void startClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Processing class " + className, Severity.TRACE);
       ++indent;
@@ -70,7 +70,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void endClass() {
+  public synchronized void endClass() {
     if (accepts(Severity.INFO)) {
       --indent;
       writeMessage("... proceeded", Severity.TRACE);
@@ -78,14 +78,14 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void startMethod(String methodName) {
+  public synchronized void startMethod(String methodName) {
     if (accepts(Severity.INFO)) {
       writeMessage("Processing method " + methodName, Severity.TRACE);
       ++indent;
     }
   }
 
-  public void endMethod() {
+  public synchronized void endMethod() {
     if (accepts(Severity.INFO)) {
       --indent;
       writeMessage("... proceeded", Severity.TRACE);
@@ -93,7 +93,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void startWriteClass(String className) {
+  public synchronized void startWriteClass(String className) {
     if (accepts(Severity.INFO)) {
       writeMessage("Writing class " + className, Severity.TRACE);
       ++indent;
@@ -101,7 +101,7 @@ public class PrintStreamLogger extends IFernflowerLogger {
   }
 
   @Override
-  public void endWriteClass() {
+  public synchronized void endWriteClass() {
     if (accepts(Severity.INFO)) {
       --indent;
       writeMessage("... written", Severity.TRACE);
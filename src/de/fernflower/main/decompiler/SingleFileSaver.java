@@ -1,26 +1,20 @@
 package de.fernflower.main.decompiler;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.extern.IFernflowerLogger;
 import de.fernflower.main.extern.IResultSaver;
-import de.fernflower.util.InterpreterUtil;
+import de.fernflower.util.ArchiveHandlePool;
+import de.fernflower.util.ZipArchiveWriter;
 
 public class SingleFileSaver implements IResultSaver {
   private final File target;
-  private ZipOutputStream output;
+  private ZipArchiveWriter output;
   private final Set<String> entries = new HashSet<>();
 
   public SingleFileSaver(File target) {
@@ -51,8 +45,7 @@ public class SingleFileSaver implements IResultSaver {
     if (output != null)
       throw new UnsupportedOperationException("Attempted to write multiple archives at the same time");
     try {
-      FileOutputStream stream = new FileOutputStream(target);
-      output = manifest != null ? new JarOutputStream(stream, manifest) : new ZipOutputStream(stream);
+      output = ConsoleDecompiler.createArchiveWriter(target, manifest);
     } catch (IOException e) {
       DecompilerContext.getLogger().writeMessage("Cannot create archive " + target, e);
     }
@@ -68,14 +61,9 @@ public class SingleFileSaver implements IResultSaver {
     if (!checkEntry(entryName))
       return;
 
-    try (ZipFile srcArchive = new ZipFile(new File(source))) {
-      ZipEntry entry = srcArchive.getEntry(entryName);
-      if (entry != null) {
-        try (InputStream in = srcArchive.getInputStream(entry)) {
-          output.putNextEntry(new ZipEntry(entryName));
-          InterpreterUtil.copyStream(in, output);
-        }
-      }
+    try (ArchiveHandlePool.Handle handle = ArchiveHandlePool.getInstance().acquire(new File(source))) {
+      // compressed entries are copied as they are, without inflating them
+      output.copyEntry(handle, entryName);
     }
     catch (IOException ex) {
       String message = "Cannot copy entry " + entryName + " from " + source + " to " + target;
@@ -84,14 +72,17 @@ public class SingleFileSaver implements IResultSaver {
   }
 
   @Override
-  public synchronized void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+  public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content) {
+    saveClassEntry(path, archiveName, qualifiedName, entryName, (CharSequence)content);
+  }
+
+  @Override
+  public synchronized void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, CharSequence content) {
     if (!checkEntry(entryName))
         return;
 
     try {
-      output.putNextEntry(new ZipEntry(entryName));
-      if (content != null)
-          output.write(content.getBytes(StandardCharsets.UTF_8));
+      output.writeTextEntry(entryName, content);
     }
     catch (IOException ex) {
       String message = "Cannot write entry " + entryName + " to " + target;
@@ -16,7 +16,13 @@
 package de.fernflower.main.extern;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public interface IBytecodeProvider {
   byte[] getBytecode(String externalPath, String internalPath) throws IOException;
+
+  // class file to be parsed, may be a memory-mapped file
+  default ByteBuffer getBytecodeBuffer(String externalPath, String internalPath) throws IOException {
+    return ByteBuffer.wrap(getBytecode(externalPath, internalPath));
+  }
 }
@@ -47,12 +47,20 @@ public interface IFernflowerPreferences {
 
   String LOG_LEVEL = "log";
   String MAX_PROCESSING_METHOD = "mpm";
+  String THREADS = "thr";
+  String PARALLEL_METHODS = "pmt";
+  String CHECK_DETERMINISM = "cdt";
   String RENAME_ENTITIES = "ren";
   String USER_RENAMER_CLASS = "urc";
   String NEW_LINE_SEPARATOR = "nls";
   String INDENT_STRING = "ind";
   String BANNER = "ban";
   String NO_COMMENT_OUTPUT = "nco";
+  String ZIP_COMPRESSION_LEVEL = "zcl";
+  String ZIP_STORED = "zst";
+  String LIBRARY_SKIP_CODE = "lsc";
+  String LIBRARY_SUMMARY_DIR = "lsd";
+  String RESULT_CACHE_DIR = "rcd";
 
   String DUMP_ORIGINAL_LINES = "__dump_original_lines__";
   String UNIT_TEST_MODE = "__unit_test_mode__";
@@ -86,11 +94,19 @@ public interface IFernflowerPreferences {
 
     put(LOG_LEVEL, IFernflowerLogger.Severity.INFO.name());
     put(MAX_PROCESSING_METHOD, "0");
+    put(THREADS, "1");
+    put(PARALLEL_METHODS, "0");
+    put(CHECK_DETERMINISM, "0");
     put(RENAME_ENTITIES, "0");
     put(NEW_LINE_SEPARATOR, (InterpreterUtil.IS_WINDOWS ? "0" : "1"));
     put(INDENT_STRING, "   ");
     put(BANNER, "");
     put(NO_COMMENT_OUTPUT, "0");
+    put(ZIP_COMPRESSION_LEVEL, "6");
+    put(ZIP_STORED, "0");
+    put(LIBRARY_SKIP_CODE, "1");
+    put(LIBRARY_SUMMARY_DIR, "");
+    put(RESULT_CACHE_DIR, "");
     put(UNIT_TEST_MODE, "0");
     put(DUMP_ORIGINAL_LINES, "0");
   }});
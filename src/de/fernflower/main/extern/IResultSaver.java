@@ -33,4 +33,14 @@ public interface IResultSaver {
   void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, String content);
 
   void closeArchive(String path, String archiveName);
+
+  // The content of a class as it was built by the decompiler, without copying it into a String. Savers may write it
+  // straight into the file or entry; by default it is saved through the String methods above.
+  default void saveClassFile(String path, String qualifiedName, String entryName, CharSequence content, int[] mapping) {
+    saveClassFile(path, qualifiedName, entryName, content == null ? null : content.toString(), mapping);
+  }
+
+  default void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName, CharSequence content) {
+    saveClassEntry(path, archiveName, qualifiedName, entryName, content == null ? null : content.toString());
+  }
 }
@@ -35,13 +35,18 @@ import de.fernflower.util.InterpreterUtil;
 import de.fernflower.util.VBStyleCollection;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinTask;
 
 public class ClassWrapper {
 
   private final StructClass classStruct;
-  private final Set<String> hiddenMembers = new HashSet<>();
+  private final Set<String> hiddenMembers = Collections.synchronizedSet(new HashSet<String>());
   private final VBStyleCollection<Exprent, String> staticFieldInitializers = new VBStyleCollection<>();
   private final VBStyleCollection<Exprent, String> dynamicFieldInitializers = new VBStyleCollection<>();
   private final VBStyleCollection<MethodWrapper, String> methods = new VBStyleCollection<>();
@@ -62,134 +67,174 @@ public class ClassWrapper {
     }
 
     int maxSec = Integer.parseInt(DecompilerContext.getProperty(IFernflowerPreferences.MAX_PROCESSING_METHOD).toString());
-    boolean testMode = DecompilerContext.getOption(IFernflowerPreferences.UNIT_TEST_MODE);
+    boolean testMode = DecompilerContext.getOptions().unitTestMode;
 
-    for (StructMethod mt : classStruct.getMethods()) {
-      DecompilerContext.getLogger().startMethod(mt.getName() + " " + mt.getDescriptor());
+    // every method has its own id space, class-level passes go on with the counters of the class
+    CounterContainer classCounter = DecompilerContext.getCounterContainer();
 
-      VarNamesCollector vc = new VarNamesCollector();
-      DecompilerContext.setVarNamesCollector(vc);
+    if (DecompilerContext.getOptions().parallelMethods && classStruct.getMethods().size() > 1) {
+      processMethodsParallel(setFieldNames, maxSec, testMode);
+    }
+    else {
+      for (StructMethod mt : classStruct.getMethods()) {
+        MethodWrapper methodWrapper = processMethod(mt, setFieldNames, maxSec, testMode);
+        methods.addWithKey(methodWrapper, InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
+      }
+    }
+
+    DecompilerContext.setCounterContainer(classCounter);
+
+    DecompilerContext.getLogger().endClass();
+  }
+
+  // methods are decompiled as fork/join tasks, each in its own copy of the context. The last one is processed
+  // by the calling thread, so the method properties are left in the same state as after the sequential loop.
+  private void processMethodsParallel(final Set<String> setFieldNames, final int maxSec, final boolean testMode) {
+    DecompilerContext parentContext = DecompilerContext.getCurrentContext();
+    VBStyleCollection<StructMethod, String> classMethods = classStruct.getMethods();
+
+    List<ForkJoinTask<MethodWrapper>> tasks = new ArrayList<>();
+    for (int i = 0; i < classMethods.size() - 1; i++) {
+      final StructMethod mt = classMethods.get(i);
+      // cloned here, the calling thread keeps modifying its own properties
+      final DecompilerContext taskContext = DecompilerContext.cloneContext(parentContext);
+      tasks.add(ForkJoinTask.adapt(new Callable<MethodWrapper>() {
+        @Override
+        public MethodWrapper call() {
+          // a task may also be run by a joining thread, whose context has to be restored afterwards
+          DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+          DecompilerContext.setCurrentContext(taskContext);
+          try {
+            return processMethod(mt, setFieldNames, maxSec, testMode);
+          }
+          finally {
+            DecompilerContext.setCurrentContext(threadContext);
+          }
+        }
+      }).fork());
+    }
+
+    StructMethod last = classMethods.getLast();
+    MethodWrapper lastWrapper = processMethod(last, setFieldNames, maxSec, testMode);
+
+    for (int i = 0; i < tasks.size(); i++) {
+      StructMethod mt = classMethods.get(i);
+      methods.addWithKey(tasks.get(i).join(), InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
+    }
+    methods.addWithKey(lastWrapper, InterpreterUtil.makeUniqueKey(last.getName(), last.getDescriptor()));
+  }
+
+  private MethodWrapper processMethod(StructMethod mt, Set<String> setFieldNames, int maxSec, boolean testMode) {
+    DecompilerContext.getLogger().startMethod(mt.getName() + " " + mt.getDescriptor());
+
+    VarNamesCollector vc = new VarNamesCollector();
+    DecompilerContext.setVarNamesCollector(vc);
+
+    CounterContainer counter = new CounterContainer();
+    DecompilerContext.setCounterContainer(counter);
 
-      CounterContainer counter = new CounterContainer();
-      DecompilerContext.setCounterContainer(counter);
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD, mt);
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, MethodDescriptor.parseDescriptor(mt.getDescriptor()));
 
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD, mt);
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_METHOD_DESCRIPTOR, MethodDescriptor.parseDescriptor(mt.getDescriptor()));
+    VarProcessor varProc = new VarProcessor();
+    DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
 
-      VarProcessor varProc = new VarProcessor();
-      DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
+    RootStatement root = null;
 
-      RootStatement root = null;
+    boolean isError = false;
 
-      boolean isError = false;
+    try {
+      if (mt.containsCode()) {
+        if (maxSec == 0 || testMode) {
+          root = MethodProcessorRunnable.codeToJava(mt, varProc);
+        }
+        else {
+          MethodProcessorRunnable mtProc = new MethodProcessorRunnable(mt, varProc, DecompilerContext.getCurrentContext());
 
-      try {
-        if (mt.containsCode()) {
-          if (maxSec == 0 || testMode) {
-            root = MethodProcessorRunnable.codeToJava(mt, varProc);
+          if (mtProc.runWithTimeLimit(maxSec)) {
+            root = mtProc.getResult();
           }
           else {
-            MethodProcessorRunnable mtProc = new MethodProcessorRunnable(mt, varProc, DecompilerContext.getCurrentContext());
-
-            Thread mtThread = new Thread(mtProc, "Java decompiler");
-            long stopAt = System.currentTimeMillis() + maxSec * 1000;
-
-            mtThread.start();
-
-            while (!mtProc.isFinished()) {
-              try {
-                synchronized (mtProc.lock) {
-                  mtProc.lock.wait(200);
-                }
-              }
-              catch (InterruptedException e) {
-                killThread(mtThread);
-                throw e;
-              }
-
-              if (System.currentTimeMillis() >= stopAt) {
-                String message = "Processing time limit exceeded for method " + mt.getName() + ", execution interrupted.";
-                DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
-                killThread(mtThread);
-                isError = true;
-                break;
-              }
+            String message = "Processing time limit exceeded for method " + mt.getName() + ", execution interrupted.";
+            if (mtProc.isAbandoned()) {
+              message = "Processing time limit exceeded for method " + mt.getName() + ", the method didn't stop and is left running.";
             }
-
-            if (!isError) {
-              root = mtProc.getResult();
+            else if (mtProc.isRejected()) {
+              message = "Method " + mt.getName() + " not decompiled, too many methods that exceeded the time limit are still running.";
             }
+            DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
+            isError = true;
+
+            // the cancelled method may still hold on to its processor, the signature is written without its names
+            varProc = new VarProcessor();
+            DecompilerContext.setProperty(DecompilerContext.CURRENT_VAR_PROCESSOR, varProc);
           }
         }
-        else {
-          boolean thisVar = !mt.hasModifier(CodeConstants.ACC_STATIC);
-          MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
+      }
+      else {
+        boolean thisVar = !mt.hasModifier(CodeConstants.ACC_STATIC);
+        MethodDescriptor md = MethodDescriptor.parseDescriptor(mt.getDescriptor());
+
+        int paramCount = 0;
+        if (thisVar) {
+          varProc.getThisVars().put(new VarVersionPair(0, 0), classStruct.qualifiedName);
+          paramCount = 1;
+        }
+        paramCount += md.params.length;
+
+        int varIndex = 0;
+        for (int i = 0; i < paramCount; i++) {
+      	String s = vc.getFreeName(varIndex);
+      	if(i > 0 || !thisVar)
+      	{
+      		int i2 = i;
+      		if(!thisVar)
+      			i2++;
+      		s = vc.getFreeName(varIndex, md.params[i2 - 1]);
+      	}
+          varProc.setVarName(new VarVersionPair(varIndex, 0), s);
 
-          int paramCount = 0;
           if (thisVar) {
-            varProc.getThisVars().put(new VarVersionPair(0, 0), classStruct.qualifiedName);
-            paramCount = 1;
-          }
-          paramCount += md.params.length;
-
-          int varIndex = 0;
-          for (int i = 0; i < paramCount; i++) {
-        	String s = vc.getFreeName(varIndex);
-        	if(i > 0 || !thisVar)
-        	{
-        		int i2 = i;
-        		if(!thisVar)
-        			i2++;
-        		s = vc.getFreeName(varIndex, md.params[i2 - 1]);
-        	}
-            varProc.setVarName(new VarVersionPair(varIndex, 0), s);
-
-            if (thisVar) {
-              if (i == 0) {
-                varIndex++;
-              }
-              else {
-                varIndex += md.params[i - 1].stackSize;
-              }
+            if (i == 0) {
+              varIndex++;
             }
             else {
-              varIndex += md.params[i].stackSize;
+              varIndex += md.params[i - 1].stackSize;
             }
           }
+          else {
+            varIndex += md.params[i].stackSize;
+          }
         }
       }
-      catch (Throwable ex) {
-        DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be decompiled.", ex);
-        isError = true;
-      }
-
-      MethodWrapper methodWrapper = new MethodWrapper(root, varProc, mt, counter);
-      methodWrapper.decompiledWithErrors = isError;
+    }
+    catch (Throwable ex) {
+      DecompilerContext.getLogger().writeMessage("Method " + mt.getName() + " " + mt.getDescriptor() + " couldn't be decompiled.", ex);
+      isError = true;
+    }
 
-      methods.addWithKey(methodWrapper, InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
+    MethodWrapper methodWrapper = new MethodWrapper(root, varProc, mt, counter);
+    methodWrapper.decompiledWithErrors = isError;
+    if (isError) {
+      DecompilerContext.getClassProcessor().reportMethodError();
+    }
 
-      // rename vars so that no one has the same name as a field
-      varProc.refreshVarNames(new VarNamesCollector(setFieldNames));
+    // rename vars so that no one has the same name as a field
+    varProc.refreshVarNames(new VarNamesCollector(setFieldNames));
 
-      // if debug information present and should be used
-      if (DecompilerContext.getOption(IFernflowerPreferences.USE_DEBUG_VAR_NAMES)) {
-        StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
-          StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
+    // if debug information present and should be used
+    if (DecompilerContext.getOptions().useDebugVarNames) {
+      StructLocalVariableTableAttribute attr = (StructLocalVariableTableAttribute)mt.getAttributes().getWithKey(
+        StructGeneralAttribute.ATTRIBUTE_LOCAL_VARIABLE_TABLE);
 
-        if (attr != null) {
-          varProc.setDebugVarNames(attr.getMapVarNames());
-        }
+      if (attr != null) {
+        varProc.setDebugVarNames(attr.getMapVarNames());
       }
-
-      DecompilerContext.getLogger().endMethod();
     }
 
-    DecompilerContext.getLogger().endClass();
-  }
+    DecompilerContext.getLogger().endMethod();
 
-  @SuppressWarnings("deprecation")
-  private static void killThread(Thread thread) {
-    thread.stop();
+    return methodWrapper;
   }
 
   public MethodWrapper getMethodWrapper(String name, String descriptor) {
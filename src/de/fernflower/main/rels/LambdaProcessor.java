@@ -82,9 +82,7 @@ public class LambdaProcessor {
 
     // iterate over code and find invocations of bootstrap methods. Replace them with anonymous classes.
     for (StructMethod mt : cl.getMethods()) {
-      mt.expandData();
-
-      InstructionSequence seq = mt.getInstructionSequence();
+      InstructionSequence seq = mt.readInstructionSequence();
       if (seq != null && seq.length() > 0) {
         int len = seq.length();
 
@@ -122,8 +120,6 @@ public class LambdaProcessor {
           }
         }
       }
-
-      mt.releaseResources();
     }
 
     // build class hierarchy on lambda
@@ -21,7 +21,6 @@ import de.fernflower.code.cfg.ControlFlowGraph;
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.collectors.CounterContainer;
 import de.fernflower.main.extern.IFernflowerLogger;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.modules.code.DeadCodeHelper;
 import de.fernflower.modules.decompiler.*;
 import de.fernflower.modules.decompiler.deobfuscator.ExceptionDeobfuscator;
@@ -31,49 +30,148 @@ import de.fernflower.struct.StructClass;
 import de.fernflower.struct.StructMethod;
 
 import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class MethodProcessorRunnable implements Runnable {
 
-  public final Object lock = new Object();
+  // shared by all methods decompiled with a time limit, instead of a thread per method
+  private static final ExecutorService executor = Executors.newCachedThreadPool(newThreadFactory("Java decompiler"));
+
+  // time a cancelled method gets to reach its next check, at most
+  private static final int MAX_CANCEL_GRACE_SEC = 5;
+
+  // methods left running, each holding a thread of the executor. Beyond this number no more methods are started.
+  public static final int MAX_ABANDONED_TASKS = 16;
+  private static final AtomicInteger abandonedTasks = new AtomicInteger();
+
+  private static final ThreadLocal<MethodProcessorRunnable> currentTask = new ThreadLocal<>();
 
   private final StructMethod method;
   private final VarProcessor varProc;
   private final DecompilerContext parentContext;
+  private final DecompilerContext context;
 
   private volatile RootStatement root;
   private volatile Throwable error;
-  private volatile boolean finished = false;
+  private volatile boolean cancelled = false;
+  private volatile boolean abandoned = false;
+  private volatile boolean rejected = false;
+  private boolean finished = false;
 
   public MethodProcessorRunnable(StructMethod method, VarProcessor varProc, DecompilerContext parentContext) {
     this.method = method;
     this.varProc = varProc;
     this.parentContext = parentContext;
+    // a task that doesn't stop is left running, so it works on its own collectors and the caller's are left alone
+    this.context = DecompilerContext.cloneMethodContext(parentContext);
   }
 
   @Override
   public void run() {
-    DecompilerContext.setCurrentContext(parentContext);
+    DecompilerContext.setCurrentContext(context);
+    currentTask.set(this);
 
     error = null;
     root = null;
 
     try {
-      root = codeToJava(method, varProc);
-    }
-    catch (ThreadDeath ex) {
-      throw ex;
+      root = process();
     }
     catch (Throwable ex) {
       error = ex;
     }
     finally {
+      currentTask.remove();
       DecompilerContext.setCurrentContext(null);
+
+      synchronized (this) {
+        finished = true;
+        if (abandoned) {
+          abandonedTasks.decrementAndGet();
+        }
+      }
     }
+  }
 
-    finished = true;
-    synchronized (lock) {
-      lock.notifyAll();
+  protected RootStatement process() throws IOException {
+    return codeToJava(method, varProc);
+  }
+
+  // returns false if the method was cancelled after maxSec seconds. A method that doesn't reach a check of
+  // the cancellation in time is abandoned, its thread is left to finish on its own. While too many methods are left
+  // running, the method is rejected without being started.
+  public boolean runWithTimeLimit(int maxSec) throws InterruptedException {
+    if (abandonedTasks.get() >= MAX_ABANDONED_TASKS) {
+      rejected = true;
+      return false;
     }
+
+    Future<?> future = executor.submit(this);
+
+    try {
+      if (waitFor(future, maxSec)) {
+        // the collectors of the method are changed only by a method that finished in time
+        DecompilerContext.mergeMethodContext(parentContext, context);
+        return true;
+      }
+
+      cancelled = true;
+      if (!waitFor(future, Math.min(maxSec, MAX_CANCEL_GRACE_SEC))) {
+        synchronized (this) {
+          if (!finished) {
+            abandoned = true;
+            abandonedTasks.incrementAndGet();
+          }
+        }
+      }
+    }
+    catch (InterruptedException e) {
+      cancelled = true;
+      throw e;
+    }
+
+    return false;
+  }
+
+  private static boolean waitFor(Future<?> future, int sec) throws InterruptedException {
+    try {
+      future.get(sec, TimeUnit.SECONDS);
+    }
+    catch (TimeoutException e) {
+      return false;
+    }
+    catch (ExecutionException e) {
+      // run() doesn't throw
+    }
+    return true;
+  }
+
+  public boolean isAbandoned() {
+    return abandoned;
+  }
+
+  public boolean isRejected() {
+    return rejected;
+  }
+
+  // called by the main passes and the heavy helpers, stops a method that ran out of time
+  public static void checkCancelled() {
+    MethodProcessorRunnable task = currentTask.get();
+    if (task != null && task.cancelled) {
+      throw new CancellationException("Processing time limit exceeded");
+    }
+  }
+
+  private static ThreadFactory newThreadFactory(final String name) {
+    return new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, name);
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
   }
 
   public static RootStatement codeToJava(StructMethod mt, VarProcessor varProc) throws IOException {
@@ -81,8 +179,7 @@ public class MethodProcessorRunnable implements Runnable {
 
     boolean isInitializer = CodeConstants.CLINIT_NAME.equals(mt.getName()); // for now static initializer only
 
-    mt.expandData();
-    InstructionSequence seq = mt.getInstructionSequence();
+    InstructionSequence seq = mt.readInstructionSequence();
     ControlFlowGraph graph = new ControlFlowGraph(seq);
 
     DeadCodeHelper.removeDeadBlocks(graph);
@@ -97,11 +194,11 @@ public class MethodProcessorRunnable implements Runnable {
 
     ExceptionDeobfuscator.restorePopRanges(graph);
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+    if (DecompilerContext.getOptions().removeEmptyRanges) {
       ExceptionDeobfuscator.removeEmptyRanges(graph);
     }
 
-    if (DecompilerContext.getOption(IFernflowerPreferences.NO_EXCEPTIONS_RETURN)) {
+    if (DecompilerContext.getOptions().noExceptionsReturn) {
       // special case: single return instruction outside of a protected range
       DeadCodeHelper.incorporateValueReturns(graph);
     }
@@ -121,6 +218,7 @@ public class MethodProcessorRunnable implements Runnable {
 
     FinallyProcessor fProc = new FinallyProcessor(varProc);
     while (fProc.iterateGraph(mt, root, graph)) {
+      checkCancelled();
       root = DomHelper.parseGraph(graph);
     }
 
@@ -140,6 +238,8 @@ public class MethodProcessorRunnable implements Runnable {
     SequenceHelper.condenseSequences(root);
     
     while (true) {
+      checkCancelled();
+
       StackVarsProcessor stackProc = new StackVarsProcessor();
       stackProc.simplifyStackVars(root, mt, cl);
 
@@ -151,9 +251,13 @@ public class MethodProcessorRunnable implements Runnable {
     }
 
     while (true) {
+      checkCancelled();
+
       LabelHelper.cleanUpEdges(root);
 
       while (true) {
+        checkCancelled();
+
         MergeHelper.enhanceLoops(root);
 
         if (LoopExtractHelper.extractLoops(root)) {
@@ -165,7 +269,7 @@ public class MethodProcessorRunnable implements Runnable {
         }
       }
 
-      if (DecompilerContext.getOption(IFernflowerPreferences.IDEA_NOT_NULL_ANNOTATION)) {
+      if (DecompilerContext.getOptions().ideaNotNullAnnotation) {
         if (IdeaNotNullHelper.removeHardcodedChecks(root, mt)) {
           SequenceHelper.condenseSequences(root);
 
@@ -203,8 +307,6 @@ public class MethodProcessorRunnable implements Runnable {
     // FIXME: new edge type needed
     LabelHelper.replaceContinueWithBreak(root);
 
-    mt.releaseResources();
-
     return root;
   }
 
@@ -214,7 +316,4 @@ public class MethodProcessorRunnable implements Runnable {
     return root;
   }
 
-  public boolean isFinished() {
-    return finished;
-  }
 }
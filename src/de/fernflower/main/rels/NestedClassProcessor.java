@@ -21,7 +21,6 @@ import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.CounterContainer;
 import de.fernflower.main.collectors.VarNamesCollector;
 import de.fernflower.main.extern.IFernflowerLogger;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.modules.decompiler.exps.*;
 import de.fernflower.modules.decompiler.sforms.DirectGraph;
 import de.fernflower.modules.decompiler.sforms.DirectNode;
@@ -125,7 +124,7 @@ public class NestedClassProcessor {
     final VarType lambda_class_type = new VarType(lambda_class_name, true);
 
     // this pointer
-    if (!is_static_lambda_content && DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS)) {
+    if (!is_static_lambda_content && DecompilerContext.getOptions().lambdaToAnonymousClass) {
       method.varproc.getThisVars().put(new VarVersionPair(0, 0), parent_class_name);
       method.varproc.setVarName(new VarVersionPair(0, 0), parent.simpleName + ".this");
     }
@@ -630,7 +629,7 @@ public class NestedClassProcessor {
       return null;
     }
 
-    boolean noSynthFlag = DecompilerContext.getOption(IFernflowerPreferences.SYNTHETIC_NOT_SET);
+    boolean noSynthFlag = DecompilerContext.getOptions().syntheticNotSet;
 
     // no loop at the begin
     DirectNode firstNode = graph.first;
@@ -20,7 +20,6 @@ import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.CounterContainer;
 import de.fernflower.main.collectors.VarNamesCollector;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.modules.decompiler.exps.*;
 import de.fernflower.modules.decompiler.sforms.DirectGraph;
 import de.fernflower.modules.decompiler.sforms.DirectNode;
@@ -50,7 +49,7 @@ public class NestedMemberAccess {
       return;
     }
 
-    noSynthFlag = DecompilerContext.getOption(IFernflowerPreferences.SYNTHETIC_NOT_SET);
+    noSynthFlag = DecompilerContext.getOptions().syntheticNotSet;
 
     computeMethodTypes(root);
 
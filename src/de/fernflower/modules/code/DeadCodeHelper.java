@@ -22,7 +22,6 @@ import de.fernflower.code.cfg.BasicBlock;
 import de.fernflower.code.cfg.ControlFlowGraph;
 import de.fernflower.code.cfg.ExceptionRangeCFG;
 import de.fernflower.main.DecompilerContext;
-import de.fernflower.main.extern.IFernflowerPreferences;
 
 import java.util.*;
 
@@ -141,7 +140,7 @@ public class DeadCodeHelper {
           List<BasicBlock> lst = range.getProtectedRange();
 
           if (lst.size() == 1 && lst.get(0) == block) {
-            if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_EMPTY_RANGES)) {
+            if (DecompilerContext.getOptions().removeEmptyRanges) {
               block.removeSuccessorException(range.getHandler());
               lstRanges.remove(i);
 
@@ -20,6 +20,7 @@ import de.fernflower.code.cfg.ControlFlowGraph;
 import de.fernflower.code.cfg.ExceptionRangeCFG;
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.extern.IFernflowerLogger;
+import de.fernflower.main.rels.MethodProcessorRunnable;
 import de.fernflower.modules.decompiler.decompose.FastExtendedPostdominanceHelper;
 import de.fernflower.modules.decompiler.deobfuscator.IrreducibleCFGDeobfuscator;
 import de.fernflower.modules.decompiler.stats.*;
@@ -370,6 +371,7 @@ public class DomHelper {
           boolean forceall = i != 0;
 
           while (true) {
+            MethodProcessorRunnable.checkCancelled();
 
             if (findSimpleStatements(general, mapExtPost)) {
               reducibility = 0;
@@ -38,6 +38,7 @@ import de.fernflower.struct.consts.PooledConstant;
 import de.fernflower.struct.consts.PrimitiveConstant;
 import de.fernflower.struct.gen.MethodDescriptor;
 import de.fernflower.struct.gen.VarType;
+import de.fernflower.util.IntIntMap;
 
 import java.util.*;
 
@@ -47,7 +48,7 @@ public class ExprProcessor implements CodeConstants {
   public static final String UNKNOWN_TYPE_STRING = "<unknown>";
   public static final String NULL_TYPE_STRING = "<null>";
 
-  private static final HashMap<Integer, Integer> mapConsts = new HashMap<Integer, Integer>();
+  private static final IntIntMap mapConsts = new IntIntMap();
 
   static {
 
@@ -82,9 +83,9 @@ public class ExprProcessor implements CodeConstants {
     // mapConsts.put(new Integer(opc_i2s), new
     // Integer(FunctionExprent.FUNCTION_I2S));
 
-    mapConsts.put(new Integer(opc_arraylength), new Integer(FunctionExprent.FUNCTION_ARRAY_LENGTH));
-    mapConsts.put(new Integer(opc_checkcast), new Integer(FunctionExprent.FUNCTION_CAST));
-    mapConsts.put(new Integer(opc_instanceof), new Integer(FunctionExprent.FUNCTION_INSTANCEOF));
+    mapConsts.put(opc_arraylength, FunctionExprent.FUNCTION_ARRAY_LENGTH);
+    mapConsts.put(opc_checkcast, FunctionExprent.FUNCTION_CAST);
+    mapConsts.put(opc_instanceof, FunctionExprent.FUNCTION_INSTANCEOF);
   }
 
   private static final VarType[] consts =
@@ -547,7 +548,7 @@ public class ExprProcessor implements CodeConstants {
         case opc_instanceof:
           stack.push(new ConstExprent(new VarType(pool.getPrimitiveConstant(instr.getOperand(0)).getString(), true), null, null));
         case opc_arraylength:
-          pushEx(stack, exprlist, new FunctionExprent(mapConsts.get(instr.opcode).intValue(), stack, bytecode_offsets));
+          pushEx(stack, exprlist, new FunctionExprent(mapConsts.get(instr.opcode, -1), stack, bytecode_offsets));
           break;
         case opc_getstatic:
         case opc_getfield:
@@ -21,7 +21,7 @@ import de.fernflower.code.cfg.ControlFlowGraph;
 import de.fernflower.code.cfg.ExceptionRangeCFG;
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.collectors.CounterContainer;
-import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.main.rels.MethodProcessorRunnable;
 import de.fernflower.modules.code.DeadCodeHelper;
 import de.fernflower.modules.decompiler.exps.AssignmentExprent;
 import de.fernflower.modules.decompiler.exps.ExitExprent;
@@ -39,6 +39,8 @@ import de.fernflower.modules.decompiler.vars.VarProcessor;
 import de.fernflower.modules.decompiler.vars.VarVersionPair;
 import de.fernflower.struct.StructMethod;
 import de.fernflower.struct.gen.VarType;
+import de.fernflower.util.IntIntMap;
+import de.fernflower.util.IntSet;
 import de.fernflower.util.InterpreterUtil;
 
 import java.util.*;
@@ -46,8 +48,9 @@ import java.util.Map.Entry;
 
 public class FinallyProcessor {
 
-  private final Map<Integer, Integer> finallyBlockIDs = new HashMap<Integer, Integer>();
-  private final Map<Integer, Integer> catchallBlockIDs = new HashMap<Integer, Integer>();
+  // handler block -> semaphore variable, -1 if the finally block needs none
+  private final IntIntMap finallyBlockIDs = new IntIntMap();
+  private final IntSet catchallBlockIDs = new IntSet();
 
   private final VarProcessor varprocessor;
 
@@ -68,6 +71,7 @@ public class FinallyProcessor {
     stack.add(root);
 
     while (!stack.isEmpty()) {
+      MethodProcessorRunnable.checkCancelled();
 
       Statement stat = stack.removeLast();
 
@@ -79,27 +83,27 @@ public class FinallyProcessor {
         BasicBlock head = fin.getBasichead().getBlock();
         BasicBlock handler = fin.getHandler().getBasichead().getBlock();
 
-        if (catchallBlockIDs.containsKey(handler.id)) {
+        if (catchallBlockIDs.contains(handler.id)) {
           // do nothing
         }
         else if (finallyBlockIDs.containsKey(handler.id)) {
 
           fin.setFinally(true);
 
-          Integer var = finallyBlockIDs.get(handler.id);
-          fin.setMonitor(var == null ? null : new VarExprent(var.intValue(), VarType.VARTYPE_INT, varprocessor));
+          int var = finallyBlockIDs.get(handler.id, -1);
+          fin.setMonitor(var < 0 ? null : new VarExprent(var, VarType.VARTYPE_INT, varprocessor));
         }
         else {
 
           Record inf = getFinallyInformation(mt, root, fin);
 
           if (inf == null) { // inconsistent finally
-            catchallBlockIDs.put(handler.id, null);
+            catchallBlockIDs.add(handler.id);
           }
           else {
 
-            if (DecompilerContext.getOption(IFernflowerPreferences.FINALLY_DEINLINE) && verifyFinallyEx(graph, fin, inf)) {
-              finallyBlockIDs.put(handler.id, null);
+            if (DecompilerContext.getOptions().finallyDeinline && verifyFinallyEx(graph, fin, inf)) {
+              finallyBlockIDs.put(handler.id, -1);
             }
             else {
 
@@ -26,7 +26,6 @@ import java.util.Set;
 import de.fernflower.code.CodeConstants;
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.ClassesProcessor.ClassNode;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.rels.ClassWrapper;
 import de.fernflower.modules.decompiler.exps.ArrayExprent;
 import de.fernflower.modules.decompiler.exps.AssignmentExprent;
@@ -51,7 +50,39 @@ import de.fernflower.util.FastSparseSetFactory.FastSparseSet;
 
 public class SimplifyExprentsHelper {
 
-  static final MatchEngine class14Builder = new MatchEngine();
+  private static final String CLASS14_PATTERN =
+    "statement type:if iftype:if exprsize:-1\n" +
+    " exprent position:head type:if\n" +
+    "  exprent type:function functype:eq\n" +
+    "   exprent type:field name:$fieldname$\n" +
+    "   exprent type:constant consttype:null\n" +
+    " statement type:basicblock\n" +
+    "  exprent position:-1 type:assignment ret:$assignfield$\n" +
+    "   exprent type:var index:$var$\n" +
+    "   exprent type:field name:$fieldname$\n" +
+    " statement type:sequence statsize:2\n" +
+    "  statement type:trycatch\n" +  
+    "   statement type:basicblock exprsize:1\n" +
+    "    exprent type:assignment\n" +
+    "     exprent type:var index:$var$\n" +
+    "     exprent type:invocation invclass:java/lang/Class signature:forName(Ljava/lang/String;)Ljava/lang/Class;\n" +
+    "      exprent position:0 type:constant consttype:string constvalue:$classname$\n" +
+    "   statement type:basicblock exprsize:1\n" +
+    "    exprent type:exit exittype:throw\n" + 
+    "  statement type:basicblock exprsize:1\n" + 
+    "   exprent type:assignment\n" + 
+    "    exprent type:field name:$fieldname$ ret:$field$\n" +
+          "    exprent type:var index:$var$";
+
+  // the engine keeps the matched variables, so every decompiler thread needs its own instance
+  private static final ThreadLocal<MatchEngine> class14Builder = new ThreadLocal<MatchEngine>() {
+    @Override
+    protected MatchEngine initialValue() {
+      MatchEngine engine = new MatchEngine();
+      engine.parse(CLASS14_PATTERN);
+      return engine;
+    }
+  };
   
   private final boolean firstInvocation;
 
@@ -65,7 +96,7 @@ public class SimplifyExprentsHelper {
 
     if (stat.getExprents() == null) {
 
-      boolean processClass14 = DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_CLASS_1_4);
+      boolean processClass14 = DecompilerContext.getOptions().decompileClass14;
 
       while (true) {
 
@@ -164,7 +195,7 @@ public class SimplifyExprentsHelper {
       }
 
       // remove getClass() invocation, which is part of a qualified new
-      if (DecompilerContext.getOption(IFernflowerPreferences.REMOVE_GET_CLASS_NEW)) {
+      if (DecompilerContext.getOptions().removeGetClassNew) {
         if (isQualifiedNewGetClass(current, next)) {
           list.remove(index);
           res = true;
@@ -876,41 +907,16 @@ public class SimplifyExprentsHelper {
     return false;
   }
 
-  static {
-    class14Builder.parse(
-          "statement type:if iftype:if exprsize:-1\n" +
-          " exprent position:head type:if\n" +
-          "  exprent type:function functype:eq\n" +
-          "   exprent type:field name:$fieldname$\n" +
-          "   exprent type:constant consttype:null\n" +
-          " statement type:basicblock\n" +
-          "  exprent position:-1 type:assignment ret:$assignfield$\n" +
-          "   exprent type:var index:$var$\n" +
-          "   exprent type:field name:$fieldname$\n" +
-          " statement type:sequence statsize:2\n" +
-          "  statement type:trycatch\n" +  
-          "   statement type:basicblock exprsize:1\n" +
-          "    exprent type:assignment\n" +
-          "     exprent type:var index:$var$\n" +
-          "     exprent type:invocation invclass:java/lang/Class signature:forName(Ljava/lang/String;)Ljava/lang/Class;\n" +
-          "      exprent position:0 type:constant consttype:string constvalue:$classname$\n" +
-          "   statement type:basicblock exprsize:1\n" +
-          "    exprent type:exit exittype:throw\n" + 
-          "  statement type:basicblock exprsize:1\n" + 
-          "   exprent type:assignment\n" + 
-          "    exprent type:field name:$fieldname$ ret:$field$\n" +
-          "    exprent type:var index:$var$"
-        );
-  }
-  
   private static boolean collapseInlinedClass14(Statement stat) {
 
-    boolean ret = class14Builder.match(stat);
+    MatchEngine engine = class14Builder.get();
+
+    boolean ret = engine.match(stat);
     if(ret) {
       
-      String class_name = (String)class14Builder.getVariableValue("$classname$");
-      AssignmentExprent assfirst = (AssignmentExprent)class14Builder.getVariableValue("$assignfield$");
-      FieldExprent fieldexpr = (FieldExprent)class14Builder.getVariableValue("$field$");
+      String class_name = (String)engine.getVariableValue("$classname$");
+      AssignmentExprent assfirst = (AssignmentExprent)engine.getVariableValue("$assignfield$");
+      FieldExprent fieldexpr = (FieldExprent)engine.getVariableValue("$field$");
 
       assfirst.replaceExprent(assfirst.getRight(), new ConstExprent(VarType.VARTYPE_CLASS, class_name, null));
       
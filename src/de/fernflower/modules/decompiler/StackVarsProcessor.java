@@ -27,7 +27,6 @@ import de.fernflower.modules.decompiler.vars.VarVersionPair;
 import de.fernflower.modules.decompiler.vars.VarVersionsGraph;
 import de.fernflower.struct.StructClass;
 import de.fernflower.struct.StructMethod;
-import de.fernflower.util.InterpreterUtil;
 import de.fernflower.util.SFormsFastMapDirect;
 import de.fernflower.util.FastSparseSetFactory.FastSparseSet;
 
@@ -652,8 +651,7 @@ public class StackVarsProcessor {
     }
 
     // compare protected ranges
-    if (!InterpreterUtil.equalObjects(ssau.getMapVersionFirstRange().get(leftpaar),
-                                      ssau.getMapVersionFirstRange().get(usedvar))) {
+    if (ssau.getVersionFirstRange(leftpaar) != ssau.getVersionFirstRange(usedvar)) {
       return false;
     }
 
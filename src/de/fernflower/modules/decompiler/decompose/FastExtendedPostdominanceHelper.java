@@ -18,19 +18,19 @@ package de.fernflower.modules.decompiler.decompose;
 import de.fernflower.modules.decompiler.StatEdge;
 import de.fernflower.modules.decompiler.stats.Statement;
 import de.fernflower.util.FastFixedSetFactory;
+import de.fernflower.util.IntObjectMap;
 import de.fernflower.util.InterpreterUtil;
 import de.fernflower.util.FastFixedSetFactory.FastFixedSet;
 
 import java.util.*;
-import java.util.Map.Entry;
 
 public class FastExtendedPostdominanceHelper {
 
   private List<Statement> lstReversePostOrderList;
 
-  private HashMap<Integer, FastFixedSet<Integer>> mapSupportPoints = new HashMap<Integer, FastFixedSet<Integer>>();
+  private IntObjectMap<FastFixedSet<Integer>> mapSupportPoints = new IntObjectMap<FastFixedSet<Integer>>();
 
-  private final HashMap<Integer, FastFixedSet<Integer>> mapExtPostdominators = new HashMap<Integer, FastFixedSet<Integer>>();
+  private final IntObjectMap<FastFixedSet<Integer>> mapExtPostdominators = new IntObjectMap<FastFixedSet<Integer>>();
 
   private Statement statement;
 
@@ -66,8 +66,8 @@ public class FastExtendedPostdominanceHelper {
     filterOnDominance(filter);
 
     HashMap<Integer, Set<Integer>> res = new HashMap<Integer, Set<Integer>>();
-    for (Entry<Integer, FastFixedSet<Integer>> entry : mapExtPostdominators.entrySet()) {
-      res.put(entry.getKey(), entry.getValue().toPlainSet());
+    for (int head : mapExtPostdominators.keys()) {
+      res.put(head, mapExtPostdominators.get(head).toPlainSet());
     }
 
     return res;
@@ -78,7 +78,7 @@ public class FastExtendedPostdominanceHelper {
 
     DominatorEngine engine = filter.getDomEngine();
 
-    for (Integer head : new HashSet<Integer>(mapExtPostdominators.keySet())) {
+    for (int head : mapExtPostdominators.keys()) {
 
       FastFixedSet<Integer> setPostdoms = mapExtPostdominators.get(head);
 
@@ -134,7 +134,7 @@ public class FastExtendedPostdominanceHelper {
   private void filterOnExceptionRanges(DominatorTreeExceptionFilter filter) {
 
 
-    for (Integer head : new HashSet<Integer>(mapExtPostdominators.keySet())) {
+    for (int head : mapExtPostdominators.keys()) {
 
       FastFixedSet<Integer> set = mapExtPostdominators.get(head);
       for (Iterator<Integer> it = set.iterator(); it.hasNext(); ) {
@@ -151,14 +151,14 @@ public class FastExtendedPostdominanceHelper {
 
   private void removeErroneousNodes() {
 
-    mapSupportPoints = new HashMap<Integer, FastFixedSet<Integer>>();
+    mapSupportPoints = new IntObjectMap<FastFixedSet<Integer>>();
 
     calcReachabilitySuppPoints(StatEdge.TYPE_REGULAR);
 
     iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+      public boolean action(Statement node, IntObjectMap<FastFixedSet<Integer>> mapSets) {
 
-        Integer nodeid = node.id;
+        int nodeid = node.id;
 
         FastFixedSet<Integer> setReachability = mapSets.get(nodeid);
         List<FastFixedSet<Integer>> lstPredSets = new ArrayList<FastFixedSet<Integer>>();
@@ -240,9 +240,9 @@ public class FastExtendedPostdominanceHelper {
     }
 
     iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+      public boolean action(Statement node, IntObjectMap<FastFixedSet<Integer>> mapSets) {
 
-        Integer nodeid = node.id;
+        int nodeid = node.id;
         FastFixedSet<Integer> setReachability = mapSets.get(nodeid);
 
         for (Integer id : setReachability.toPlainSet()) {
@@ -258,7 +258,7 @@ public class FastExtendedPostdominanceHelper {
   private void calcReachabilitySuppPoints(final int edgetype) {
 
     iterateReachability(new IReachabilityAction() {
-      public boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets) {
+      public boolean action(Statement node, IntObjectMap<FastFixedSet<Integer>> mapSets) {
 
         // consider to be a support point
         for (StatEdge sucedge : node.getAllSuccessorEdges()) {
@@ -285,7 +285,7 @@ public class FastExtendedPostdominanceHelper {
 
       boolean iterate = false;
 
-      HashMap<Integer, FastFixedSet<Integer>> mapSets = new HashMap<Integer, FastFixedSet<Integer>>();
+      IntObjectMap<FastFixedSet<Integer>> mapSets = new IntObjectMap<FastFixedSet<Integer>>();
 
       for (Statement stat : lstReversePostOrderList) {
 
@@ -345,6 +345,6 @@ public class FastExtendedPostdominanceHelper {
 
 
   private interface IReachabilityAction {
-    boolean action(Statement node, HashMap<Integer, FastFixedSet<Integer>> mapSets);
+    boolean action(Statement node, IntObjectMap<FastFixedSet<Integer>> mapSets);
   }
 }
@@ -19,7 +19,6 @@ import de.fernflower.code.CodeConstants;
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.TextBuffer;
 import de.fernflower.main.collectors.BytecodeMappingTracer;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.modules.decompiler.ExprProcessor;
 import de.fernflower.struct.gen.FieldDescriptor;
 import de.fernflower.struct.gen.VarType;
@@ -114,8 +113,8 @@ public class ConstExprent extends Exprent {
 
   @Override
   public TextBuffer toJava(int indent, BytecodeMappingTracer tracer) {
-    boolean literal = DecompilerContext.getOption(IFernflowerPreferences.LITERALS_AS_IS);
-    boolean ascii = DecompilerContext.getOption(IFernflowerPreferences.ASCII_STRING_CHARACTERS);
+    boolean literal = DecompilerContext.getOptions().literalsAsIs;
+    boolean ascii = DecompilerContext.getOptions().asciiStringCharacters;
 
     tracer.addMapping(bytecode);
 
@@ -340,7 +339,7 @@ public class ConstExprent extends Exprent {
       case CodeConstants.TYPE_INT:
         Integer ival = (Integer)value;
         return ival.intValue() == 0 ||
-               (DecompilerContext.getOption(IFernflowerPreferences.BOOLEAN_TRUE_ONE) && ival.intValue() == 1);
+               (DecompilerContext.getOptions().booleanTrueOne && ival.intValue() == 1);
     }
 
     return false;
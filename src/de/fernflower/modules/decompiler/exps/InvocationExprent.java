@@ -20,7 +20,6 @@ import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.TextBuffer;
 import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.BytecodeMappingTracer;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.rels.MethodWrapper;
 import de.fernflower.modules.decompiler.ExprProcessor;
 import de.fernflower.modules.decompiler.vars.CheckTypesResult;
@@ -395,7 +394,7 @@ public class InvocationExprent extends Exprent {
             sigFields.set(0, new VarVersionPair(-1, 0));
           }
         }
-        isEnum = newNode.classStruct.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOption(IFernflowerPreferences.DECOMPILE_ENUM);
+        isEnum = newNode.classStruct.hasModifier(CodeConstants.ACC_ENUM) && DecompilerContext.getOptions().decompileEnum;
       }
     }
 
@@ -21,7 +21,6 @@ import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.TextBuffer;
 import de.fernflower.main.ClassesProcessor.ClassNode;
 import de.fernflower.main.collectors.BytecodeMappingTracer;
-import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.modules.decompiler.ExprProcessor;
 import de.fernflower.modules.decompiler.vars.CheckTypesResult;
 import de.fernflower.modules.decompiler.vars.VarVersionPair;
@@ -239,7 +238,7 @@ public class NewExprent extends Exprent {
       }
 
       if (lambda) {
-        if (!DecompilerContext.getOption(IFernflowerPreferences.LAMBDA_TO_ANONYMOUS_CLASS)) {
+        if (!DecompilerContext.getOptions().lambdaToAnonymousClass) {
           buf.setLength(0);  // remove the usual 'new <class>()', it will be replaced with lambda style '() ->'
         }
         Exprent methodObject = constructor == null ? null : constructor.getInstance();
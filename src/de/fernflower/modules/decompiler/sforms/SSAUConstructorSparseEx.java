@@ -16,6 +16,7 @@
 package de.fernflower.modules.decompiler.sforms;
 
 import de.fernflower.code.CodeConstants;
+import de.fernflower.main.rels.MethodProcessorRunnable;
 import de.fernflower.modules.decompiler.exps.*;
 import de.fernflower.modules.decompiler.sforms.FlattenStatementsHelper.FinallyPathWrapper;
 import de.fernflower.modules.decompiler.stats.*;
@@ -27,6 +28,8 @@ import de.fernflower.struct.StructMethod;
 import de.fernflower.struct.gen.MethodDescriptor;
 import de.fernflower.util.FastSparseSetFactory;
 import de.fernflower.util.InterpreterUtil;
+import de.fernflower.util.LongIntMap;
+import de.fernflower.util.LongObjectMap;
 import de.fernflower.util.SFormsFastMapDirect;
 import de.fernflower.util.VBStyleCollection;
 import de.fernflower.util.FastSparseSetFactory.FastSparseSet;
@@ -56,20 +59,20 @@ public class SSAUConstructorSparseEx {
   //private HashMap<String, HashMap<Integer, FastSet<Integer>>> extraVarVersions = new HashMap<String, HashMap<Integer, FastSet<Integer>>>();
 
   // (var, version), version
-  private final HashMap<VarVersionPair, HashSet<Integer>> phi = new HashMap<VarVersionPair, HashSet<Integer>>();
+  private final LongObjectMap<HashSet<Integer>> phi = new LongObjectMap<HashSet<Integer>>();
 
   // var, version
   private final HashMap<Integer, Integer> lastversion = new HashMap<Integer, Integer>();
 
   // version, protected ranges (catch, finally)
-  private final HashMap<VarVersionPair, Integer> mapVersionFirstRange = new HashMap<VarVersionPair, Integer>();
+  private final LongIntMap mapVersionFirstRange = new LongIntMap();
 
   // version, version
-  private final HashMap<VarVersionPair, VarVersionPair> phantomppnodes = new HashMap<VarVersionPair, VarVersionPair>(); // ++ and --
+  private final LongObjectMap<VarVersionPair> phantomppnodes = new LongObjectMap<VarVersionPair>(); // ++ and --
 
   // node.id, version, version
-  private final HashMap<String, HashMap<VarVersionPair, VarVersionPair>> phantomexitnodes =
-    new HashMap<String, HashMap<VarVersionPair, VarVersionPair>>(); // finally exits
+  private final HashMap<String, LongObjectMap<VarVersionPair>> phantomexitnodes =
+    new HashMap<String, LongObjectMap<VarVersionPair>>(); // finally exits
 
   // versions memory dependencies
   private final VarVersionsGraph ssuversions = new VarVersionsGraph();
@@ -119,6 +122,7 @@ public class SSAUConstructorSparseEx {
   private void ssaStatements(DirectGraph dgraph, HashSet<String> updated, boolean calcLiveVars) {
 
     for (DirectNode node : dgraph.nodes) {
+      MethodProcessorRunnable.checkCancelled();
 
       updated.remove(node.id);
       mergeInVarMaps(node, dgraph);
@@ -332,7 +336,7 @@ public class SSAUConstructorSparseEx {
             VarVersionPair varpaar = new VarVersionPair(varindex.intValue(), var.getVersion());
 
             // ssu graph
-            VarVersionPair phantomver = phantomppnodes.get(varpaar);
+            VarVersionPair phantomver = phantomppnodes.get(varpaar.pack());
             if (phantomver == null) {
               // get next version
               Integer nextver = getNextFreeVersion(varindex, null);
@@ -353,7 +357,7 @@ public class SSAUConstructorSparseEx {
               }
               vers.add(nextver);
               createOrUpdatePhiNode(varpaar, vers, stat);
-              phantomppnodes.put(varpaar, phantomver);
+              phantomppnodes.put(varpaar.pack(), phantomver);
             }
             if (calcLiveVars) {
               varMapToGraph(varpaar, varmap);
@@ -429,7 +433,8 @@ public class SSAUConstructorSparseEx {
     HashSet<Integer> phiVers = new HashSet<Integer>();
 
     // take into account the corresponding mm/pp node if existing
-    int ppvers = phantomppnodes.containsKey(phivar) ? phantomppnodes.get(phivar).version : -1;
+    VarVersionPair ppvar = phantomppnodes.get(phivar.pack());
+    int ppvers = ppvar != null ? ppvar.version : -1;
 
     // ssu graph
     VarVersionNode phinode = ssuversions.nodes.getWithKey(phivar);
@@ -484,7 +489,7 @@ public class SSAUConstructorSparseEx {
     ssuversions.addNodes(colnodes, colpaars);
 
     // update phi node
-    phi.put(phivar, phiVers);
+    phi.put(phivar.pack(), phiVers);
   }
 
   private void varMapToGraph(VarVersionPair varpaar, SFormsFastMapDirect varmap) {
@@ -512,7 +517,7 @@ public class SSAUConstructorSparseEx {
     if (stat != null) { // null iff phantom version
       Integer firstRangeId = getFirstProtectedRange(stat);
       if (firstRangeId != null) {
-        mapVersionFirstRange.put(new VarVersionPair(var, nextver), firstRangeId);
+        mapVersionFirstRange.put(VarVersionPair.pack(var, nextver), firstRangeId);
       }
     }
 
@@ -633,9 +638,9 @@ public class SSAUConstructorSparseEx {
         if (!mapTrueSource.isEmpty() && !mapNew.isEmpty()) { // FIXME: what for??
 
           // replace phi versions with corresponding phantom ones
-          HashMap<VarVersionPair, VarVersionPair> mapPhantom = phantomexitnodes.get(predid);
+          LongObjectMap<VarVersionPair> mapPhantom = phantomexitnodes.get(predid);
           if (mapPhantom == null) {
-            mapPhantom = new HashMap<VarVersionPair, VarVersionPair>();
+            mapPhantom = new LongObjectMap<VarVersionPair>();
           }
 
           SFormsFastMapDirect mapExitVar = mapNew.getCopy();
@@ -652,7 +657,7 @@ public class SSAUConstructorSparseEx {
               newSet.remove(version);
 
               // get or create phantom version
-              VarVersionPair phantomvar = mapPhantom.get(exitvar);
+              VarVersionPair phantomvar = mapPhantom.get(exitvar.pack());
               if (phantomvar == null) {
                 Integer newversion = getNextFreeVersion(exitvar.var, null);
                 phantomvar = new VarVersionPair(exitvar.var, newversion.intValue());
@@ -665,7 +670,7 @@ public class SSAUConstructorSparseEx {
                 exitnode.addSuccessor(edge);
                 phantomnode.addPredecessor(edge);
 
-                mapPhantom.put(exitvar, phantomvar);
+                mapPhantom.put(exitvar.pack(), phantomvar);
               }
 
               // add phantom version
@@ -815,7 +820,7 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPair, HashSet<Integer>> getPhi() {
+  public LongObjectMap<HashSet<Integer>> getPhi() {
     return phi;
   }
 
@@ -834,8 +839,9 @@ public class SSAUConstructorSparseEx {
     return null;
   }
 
-  public HashMap<VarVersionPair, Integer> getMapVersionFirstRange() {
-    return mapVersionFirstRange;
+  // id of the first protected range containing the version, -1 if there is none
+  public int getVersionFirstRange(VarVersionPair varpaar) {
+    return mapVersionFirstRange.get(varpaar.pack(), -1);
   }
 
   public HashMap<Integer, Integer> getMapFieldVars() {
@@ -28,6 +28,7 @@ import de.fernflower.struct.match.IMatchable;
 import de.fernflower.struct.match.MatchEngine;
 import de.fernflower.struct.match.MatchNode;
 import de.fernflower.struct.match.MatchNode.RuleValue;
+import de.fernflower.util.IntObjectMap;
 import de.fernflower.util.VBStyleCollection;
 
 import java.util.*;
@@ -73,11 +74,11 @@ public class Statement implements IMatchable {
   // private fields
   // *****************************************************************************
 
-  private final Map<Integer, List<StatEdge>> mapSuccEdges = new HashMap<Integer, List<StatEdge>>();
-  private final Map<Integer, List<StatEdge>> mapPredEdges = new HashMap<Integer, List<StatEdge>>();
+  private final IntObjectMap<List<StatEdge>> mapSuccEdges = new IntObjectMap<List<StatEdge>>();
+  private final IntObjectMap<List<StatEdge>> mapPredEdges = new IntObjectMap<List<StatEdge>>();
 
-  private final Map<Integer, List<Statement>> mapSuccStates = new HashMap<Integer, List<Statement>>();
-  private final Map<Integer, List<Statement>> mapPredStates = new HashMap<Integer, List<Statement>>();
+  private final IntObjectMap<List<Statement>> mapSuccStates = new IntObjectMap<List<Statement>>();
+  private final IntObjectMap<List<Statement>> mapPredStates = new IntObjectMap<List<Statement>>();
 
   // statement as graph
   protected final VBStyleCollection<Statement, Integer> stats = new VBStyleCollection<Statement, Integer>();
@@ -138,7 +139,7 @@ public class Statement implements IMatchable {
     processMap(mapPredStates);
   }
 
-  private static <T> void processMap(Map<Integer, List<T>> map) {
+  private static <T> void processMap(IntObjectMap<List<T>> map) {
     map.remove(StatEdge.TYPE_EXCEPTION);
 
     List<T> lst = map.get(STATEDGE_DIRECT_ALL);
@@ -255,8 +256,8 @@ public class Statement implements IMatchable {
 
   private void addEdgeDirectInternal(int direction, StatEdge edge, int edgetype) {
 
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
+    IntObjectMap<List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
+    IntObjectMap<List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
     List<StatEdge> lst = mapEdges.get(edgetype);
     if (lst == null) {
@@ -290,8 +291,8 @@ public class Statement implements IMatchable {
 
   private void removeEdgeDirectInternal(int direction, StatEdge edge, int edgetype) {
 
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
+    IntObjectMap<List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
+    IntObjectMap<List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
     List<StatEdge> lst = mapEdges.get(edgetype);
     if (lst != null) {
@@ -642,8 +643,8 @@ public class Statement implements IMatchable {
 
   public void changeEdgeNode(int direction, StatEdge edge, Statement value) {
 
-    Map<Integer, List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
-    Map<Integer, List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
+    IntObjectMap<List<StatEdge>> mapEdges = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
+    IntObjectMap<List<Statement>> mapStates = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
     int type = edge.getType();
 
@@ -697,7 +698,7 @@ public class Statement implements IMatchable {
 
   private List<StatEdge> getEdges(int type, int direction) {
 
-    Map<Integer, List<StatEdge>> map = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
+    IntObjectMap<List<StatEdge>> map = direction == DIRECTION_BACKWARD ? mapPredEdges : mapSuccEdges;
 
     List<StatEdge> res;
     if ((type & (type - 1)) == 0) {
@@ -721,7 +722,7 @@ public class Statement implements IMatchable {
 
   public List<Statement> getNeighbours(int type, int direction) {
 
-    Map<Integer, List<Statement>> map = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
+    IntObjectMap<List<Statement>> map = direction == DIRECTION_BACKWARD ? mapPredStates : mapSuccStates;
 
     List<Statement> res;
     if ((type & (type - 1)) == 0) {
@@ -937,5 +938,9 @@ public class Statement implements IMatchable {
     
     return true;
   }
-  
+
+  @Override
+  public int hashCode() {
+    return id;
+  }
 }
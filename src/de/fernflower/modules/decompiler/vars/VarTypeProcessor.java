@@ -27,6 +27,8 @@ import de.fernflower.struct.StructClass;
 import de.fernflower.struct.StructMethod;
 import de.fernflower.struct.gen.MethodDescriptor;
 import de.fernflower.struct.gen.VarType;
+import de.fernflower.util.LongIntMap;
+import de.fernflower.util.LongObjectMap;
 
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -40,8 +42,8 @@ public class VarTypeProcessor {
   public static final int VAR_FINAL = 3;
 
   private final Map<VarVersionPair, VarType> mapExprentMinTypes = new HashMap<VarVersionPair, VarType>();
-  private final Map<VarVersionPair, VarType> mapExprentMaxTypes = new HashMap<VarVersionPair, VarType>();
-  private final Map<VarVersionPair, Integer> mapFinalVars = new HashMap<VarVersionPair, Integer>();
+  private final LongObjectMap<VarType> mapExprentMaxTypes = new LongObjectMap<VarType>();
+  private final LongIntMap mapFinalVars = new LongIntMap();
 
   private void setInitVars(RootStatement root) {
     StructMethod mt = (StructMethod)DecompilerContext.getProperty(DecompilerContext.CURRENT_METHOD);
@@ -54,13 +56,13 @@ public class VarTypeProcessor {
       StructClass cl = (StructClass)DecompilerContext.getProperty(DecompilerContext.CURRENT_CLASS);
       VarType clType = new VarType(CodeConstants.TYPE_OBJECT, 0, cl.qualifiedName);
       mapExprentMinTypes.put(new VarVersionPair(0, 1), clType);
-      mapExprentMaxTypes.put(new VarVersionPair(0, 1), clType);
+      mapExprentMaxTypes.put(VarVersionPair.pack(0, 1), clType);
     }
 
     int varIndex = 0;
     for (int i = 0; i < md.params.length; i++) {
       mapExprentMinTypes.put(new VarVersionPair(varIndex + (thisVar ? 1 : 0), 1), md.params[i]);
-      mapExprentMaxTypes.put(new VarVersionPair(varIndex + (thisVar ? 1 : 0), 1), md.params[i]);
+      mapExprentMaxTypes.put(VarVersionPair.pack(varIndex + (thisVar ? 1 : 0), 1), md.params[i]);
       varIndex += md.params[i].stackSize;
     }
 
@@ -82,7 +84,7 @@ public class VarTypeProcessor {
       if (lstVars != null) {
         for (VarExprent var : lstVars) {
           mapExprentMinTypes.put(new VarVersionPair(var.getIndex(), 1), var.getVarType());
-          mapExprentMaxTypes.put(new VarVersionPair(var.getIndex(), 1), var.getVarType());
+          mapExprentMaxTypes.put(VarVersionPair.pack(var.getIndex(), 1), var.getVarType());
         }
       }
 
@@ -217,7 +219,8 @@ public class VarTypeProcessor {
           }
         }
         else {  // max
-          VarType currentMaxType = mapExprentMaxTypes.get(pair);
+          long key = pair.pack();
+          VarType currentMaxType = mapExprentMaxTypes.get(key);
           VarType newMaxType;
           if (currentMaxType == null || newType.typeFamily < currentMaxType.typeFamily) {
             newMaxType = newType;
@@ -229,7 +232,7 @@ public class VarTypeProcessor {
             newMaxType = VarType.getCommonMinType(currentMaxType, newType);
           }
 
-          mapExprentMaxTypes.put(pair, newMaxType);
+          mapExprentMaxTypes.put(key, newMaxType);
         }
         break;
 
@@ -255,7 +258,7 @@ public class VarTypeProcessor {
     return res;
   }
 
-  public Map<VarVersionPair, VarType> getMapExprentMaxTypes() {
+  public LongObjectMap<VarType> getMapExprentMaxTypes() {
     return mapExprentMaxTypes;
   }
 
@@ -263,7 +266,7 @@ public class VarTypeProcessor {
     return mapExprentMinTypes;
   }
 
-  public Map<VarVersionPair, Integer> getMapFinalVars() {
+  public LongIntMap getMapFinalVars() {
     return mapFinalVars;
   }
 
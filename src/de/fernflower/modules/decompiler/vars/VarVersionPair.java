@@ -39,6 +39,19 @@ public class VarVersionPair {
     this.version = var.getVersion();
   }
 
+  // the pair as one long, the key of the maps that keep no pair object per entry
+  public static long pack(int var, int version) {
+    return ((long)var << 32) | (version & 0xFFFFFFFFL);
+  }
+
+  public long pack() {
+    return pack(var, version);
+  }
+
+  public static VarVersionPair unpack(long key) {
+    return new VarVersionPair((int)(key >> 32), (int)key);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == this) return true;
@@ -28,6 +28,8 @@ import de.fernflower.modules.decompiler.stats.RootStatement;
 import de.fernflower.struct.StructMethod;
 import de.fernflower.struct.gen.VarType;
 import de.fernflower.util.FastSparseSetFactory.FastSparseSet;
+import de.fernflower.util.LongIntMap;
+import de.fernflower.util.LongObjectMap;
 
 import java.util.*;
 import java.util.Map.Entry;
@@ -84,7 +86,7 @@ public class VarVersionsProcessor {
       lst.add(set);
     }
 
-    Map<VarVersionPair, Integer> phiVersions = new HashMap<VarVersionPair, Integer>();
+    LongIntMap phiVersions = new LongIntMap();
     for (Set<VarVersionPair> set : lst) {
       int min = Integer.MAX_VALUE;
       for (VarVersionPair paar : set) {
@@ -94,14 +96,14 @@ public class VarVersionsProcessor {
       }
 
       for (VarVersionPair paar : set) {
-        phiVersions.put(new VarVersionPair(paar.var, paar.version), min);
+        phiVersions.put(paar.pack(), min);
       }
     }
 
     updateVersions(graph, phiVersions);
   }
 
-  private static void updateVersions(DirectGraph graph, final Map<VarVersionPair, Integer> versions) {
+  private static void updateVersions(DirectGraph graph, final LongIntMap versions) {
     graph.iterateExprents(new DirectGraph.ExprentIterator() {
       @Override
       public int processExprent(Exprent exprent) {
@@ -111,8 +113,8 @@ public class VarVersionsProcessor {
         for (Exprent expr : lst) {
           if (expr.type == Exprent.EXPRENT_VAR) {
             VarExprent var = (VarExprent)expr;
-            Integer version = versions.get(new VarVersionPair(var));
-            if (version != null) {
+            int version = versions.get(VarVersionPair.pack(var.getIndex(), var.getVersion()), -1);
+            if (version >= 0) {
               var.setVersion(version);
             }
           }
@@ -124,13 +126,13 @@ public class VarVersionsProcessor {
   }
 
   private static void eliminateNonJavaTypes(VarTypeProcessor typeProcessor) {
-    Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
+    LongObjectMap<VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMapExprentMinTypes();
 
     Set<VarVersionPair> set = new HashSet<VarVersionPair>(mapExprentMinTypes.keySet());
     for (VarVersionPair paar : set) {
       VarType type = mapExprentMinTypes.get(paar);
-      VarType maxType = mapExprentMaxTypes.get(paar);
+      VarType maxType = mapExprentMaxTypes.get(paar.pack());
 
       if (type.type == CodeConstants.TYPE_BYTECHAR || type.type == CodeConstants.TYPE_SHORTCHAR) {
         if (maxType != null && maxType.type == CodeConstants.TYPE_CHAR) {
@@ -150,7 +152,7 @@ public class VarVersionsProcessor {
   }
 
   private static void simpleMerge(VarTypeProcessor typeProcessor, DirectGraph graph, StructMethod mt) {
-    Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
+    LongObjectMap<VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMapExprentMinTypes();
 
     Map<Integer, Set<Integer>> mapVarVersions = new HashMap<Integer, Set<Integer>>();
@@ -168,7 +170,7 @@ public class VarVersionsProcessor {
 
     boolean is_method_static = mt.hasModifier(CodeConstants.ACC_STATIC);
 
-    Map<VarVersionPair, Integer> mapMergedVersions = new HashMap<VarVersionPair, Integer>();
+    LongIntMap mapMergedVersions = new LongIntMap();
 
     for (Entry<Integer, Set<Integer>> ent : mapVarVersions.entrySet()) {
 
@@ -192,15 +194,15 @@ public class VarVersionsProcessor {
                 (firstType.equals(VarType.VARTYPE_NULL) && secondType.type == CodeConstants.TYPE_OBJECT) ||
                 (secondType.equals(VarType.VARTYPE_NULL) && firstType.type == CodeConstants.TYPE_OBJECT)) {
 
-              VarType firstMaxType = mapExprentMaxTypes.get(firstPair);
-              VarType secondMaxType = mapExprentMaxTypes.get(secondPair);
+              VarType firstMaxType = mapExprentMaxTypes.get(firstPair.pack());
+              VarType secondMaxType = mapExprentMaxTypes.get(secondPair.pack());
               VarType type = firstMaxType == null ? secondMaxType :
                              secondMaxType == null ? firstMaxType :
                              VarType.getCommonMinType(firstMaxType, secondMaxType);
 
-              mapExprentMaxTypes.put(firstPair, type);
-              mapMergedVersions.put(secondPair, firstPair.version);
-              mapExprentMaxTypes.remove(secondPair);
+              mapExprentMaxTypes.put(firstPair.pack(), type);
+              mapMergedVersions.put(secondPair.pack(), firstPair.version);
+              mapExprentMaxTypes.remove(secondPair.pack());
               mapExprentMinTypes.remove(secondPair);
 
               if (firstType.equals(VarType.VARTYPE_NULL)) {
@@ -208,7 +210,7 @@ public class VarVersionsProcessor {
                 firstType = secondType;
               }
 
-              typeProcessor.getMapFinalVars().put(firstPair, VarTypeProcessor.VAR_NON_FINAL);
+              typeProcessor.getMapFinalVars().put(firstPair.pack(), VarTypeProcessor.VAR_NON_FINAL);
 
               lstVersions.remove(j);
               //noinspection AssignmentToForLoopParameter
@@ -225,13 +227,13 @@ public class VarVersionsProcessor {
   }
 
   private void setNewVarIndices(VarTypeProcessor typeProcessor, DirectGraph graph) {
-    final Map<VarVersionPair, VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
+    final LongObjectMap<VarType> mapExprentMaxTypes = typeProcessor.getMapExprentMaxTypes();
     Map<VarVersionPair, VarType> mapExprentMinTypes = typeProcessor.getMapExprentMinTypes();
-    Map<VarVersionPair, Integer> mapFinalVars = typeProcessor.getMapFinalVars();
+    LongIntMap mapFinalVars = typeProcessor.getMapFinalVars();
 
     CounterContainer counters = DecompilerContext.getCounterContainer();
 
-    final Map<VarVersionPair, Integer> mapVarPaar = new HashMap<VarVersionPair, Integer>();
+    final LongIntMap mapVarPaar = new LongIntMap();
     Map<Integer, Integer> mapOriginalVarIndices = new HashMap<Integer, Integer>();
 
     // map var-version pairs on new var indexes
@@ -244,13 +246,15 @@ public class VarVersionsProcessor {
         VarVersionPair newVar = new VarVersionPair(newIndex, 0);
 
         mapExprentMinTypes.put(newVar, mapExprentMinTypes.get(pair));
-        mapExprentMaxTypes.put(newVar, mapExprentMaxTypes.get(pair));
+        mapExprentMaxTypes.put(newVar.pack(), mapExprentMaxTypes.get(pair.pack()));
 
-        if (mapFinalVars.containsKey(pair)) {
-          mapFinalVars.put(newVar, mapFinalVars.remove(pair));
+        int fin = mapFinalVars.get(pair.pack(), -1);
+        if (fin >= 0) {
+          mapFinalVars.remove(pair.pack());
+          mapFinalVars.put(newVar.pack(), fin);
         }
 
-        mapVarPaar.put(pair, newIndex);
+        mapVarPaar.put(pair.pack(), newIndex);
         mapOriginalVarIndices.put(newIndex, pair.var);
       }
     }
@@ -265,14 +269,14 @@ public class VarVersionsProcessor {
         for (Exprent expr : lst) {
           if (expr.type == Exprent.EXPRENT_VAR) {
             VarExprent newVar = (VarExprent)expr;
-            Integer newVarIndex = mapVarPaar.get(new VarVersionPair(newVar));
-            if (newVarIndex != null) {
+            int newVarIndex = mapVarPaar.get(VarVersionPair.pack(newVar.getIndex(), newVar.getVersion()), -1);
+            if (newVarIndex >= 0) {
               newVar.setIndex(newVarIndex);
               newVar.setVersion(0);
             }
           }
           else if (expr.type == Exprent.EXPRENT_CONST) {
-            VarType maxType = mapExprentMaxTypes.get(new VarVersionPair(expr.id, -1));
+            VarType maxType = mapExprentMaxTypes.get(VarVersionPair.pack(expr.id, -1));
             if (maxType != null && maxType.equals(VarType.VARTYPE_CHAR)) {
               ((ConstExprent)expr).setConstType(maxType);
             }
@@ -297,15 +301,14 @@ public class VarVersionsProcessor {
   public int getVarFinal(VarVersionPair pair) {
     int ret = VarTypeProcessor.VAR_FINAL;
     if (typeProcessor != null) {
-      Integer fin = typeProcessor.getMapFinalVars().get(pair);
-      ret = fin == null ? VarTypeProcessor.VAR_FINAL : fin.intValue();
+      ret = typeProcessor.getMapFinalVars().get(pair.pack(), VarTypeProcessor.VAR_FINAL);
     }
 
     return ret;
   }
 
   public void setVarFinal(VarVersionPair pair, int finalType) {
-    typeProcessor.getMapFinalVars().put(pair, finalType);
+    typeProcessor.getMapFinalVars().put(pair.pack(), finalType);
   }
 
   public Map<Integer, Integer> getMapOriginalVarIndices() {
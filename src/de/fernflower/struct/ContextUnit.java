@@ -16,15 +16,23 @@
 package de.fernflower.struct;
 
 import de.fernflower.main.DecompilerContext;
+import de.fernflower.main.extern.IFernflowerLogger;
 import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.extern.IResultSaver;
 import de.fernflower.struct.lazy.LazyLoader;
 import de.fernflower.struct.lazy.LazyLoader.Link;
-import de.fernflower.util.DataInputFullStream;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
@@ -77,14 +85,7 @@ public class ContextUnit {
     for (StructClass cl : classes) {
       String oldName = cl.qualifiedName;
 
-      StructClass newCl;
-      DataInputFullStream in = loader.getClassStream(oldName);
-      try {
-        newCl = new StructClass(in, cl.isOwn(), loader);
-      }
-      finally {
-        in.close();
-      }
+      StructClass newCl = new StructClass(loader.getClassBuffer(oldName), cl.isOwn(), loader);
 
       lstClasses.add(newCl);
 
@@ -108,21 +109,14 @@ public class ContextUnit {
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          DecompilerContext.getLogger().updateCounters(i, classes.size());
-          StructClass cl = classes.get(i);
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
-          if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
+        saveClasses(new ClassSaver() {
+          @Override
+          public void save(StructClass cl, String entryName, CharSequence content, int[] mapping) {
             if (content != null) {
-              int[] mapping = null;
-              if (DecompilerContext.getOption(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING)) {
-                mapping = DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
-              }
               resultSaver.saveClassFile(filename, cl.qualifiedName, entryName, content, mapping);
             }
           }
-        }
+        });
 
         break;
 
@@ -145,20 +139,129 @@ public class ContextUnit {
         }
 
         // classes
-        for (int i = 0; i < classes.size(); i++) {
-          DecompilerContext.getLogger().updateCounters(i, classes.size());
-          StructClass cl = classes.get(i);
-          String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
-          if (entryName != null) {
-            String content = decompiledData.getClassContent(cl);
+        saveClasses(new ClassSaver() {
+          @Override
+          public void save(StructClass cl, String entryName, CharSequence content, int[] mapping) {
             resultSaver.saveClassEntry(archivePath, filename, cl.qualifiedName, entryName, content);
           }
-        }
+        });
 
         resultSaver.closeArchive(archivePath, filename);
     }
   }
 
+  private void saveClasses(ClassSaver saver) {
+    int threads = DecompilerContext.getThreadCount();
+
+    if (threads < 2 || classes.size() < 2) {
+      for (int i = 0; i < classes.size(); i++) {
+        DecompilerContext.getLogger().updateCounters(i, classes.size());
+        StructClass cl = classes.get(i);
+        String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
+        if (entryName != null) {
+          CharSequence content = decompiledData.getClassText(cl);
+          saver.save(cl, entryName, content, getOriginalLinesMapping(content));
+        }
+      }
+      return;
+    }
+
+    // root classes are decompiled concurrently, the most expensive ones first so that no big class is left
+    // for the end of the run. The results are handed to the saver in their original order.
+    final DecompilerContext parentContext = DecompilerContext.getCurrentContext();
+    ExecutorService executor = Executors.newWorkStealingPool(Math.min(threads, classes.size()));
+    try {
+      List<String> entryNames = new ArrayList<String>();
+      final long[] costs = new long[classes.size()];
+      List<Integer> order = new ArrayList<Integer>();
+
+      for (int i = 0; i < classes.size(); i++) {
+        StructClass cl = classes.get(i);
+        String entryName = decompiledData.getClassEntryName(cl, classEntries.get(i));
+        entryNames.add(entryName);
+        if (entryName != null) {
+          costs[i] = DecompilerContext.getClassProcessor().getClassCost(cl);
+          order.add(i);
+        }
+      }
+
+      Collections.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+          return costs[o1] != costs[o2] ? Long.compare(costs[o2], costs[o1]) : o1.compareTo(o2);
+        }
+      });
+
+      List<Future<DecompiledClass>> results = new ArrayList<Future<DecompiledClass>>();
+      for (int i = 0; i < classes.size(); i++) {
+        results.add(null);
+      }
+
+      for (int i : order) {
+        final StructClass cl = classes.get(i);
+        results.set(i, executor.submit(new Callable<DecompiledClass>() {
+          @Override
+          public DecompiledClass call() {
+            // a pool thread may run this while waiting for a task of another class, restore its context afterwards
+            DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+            DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(parentContext));
+            try {
+              CharSequence content = decompiledData.getClassText(cl);
+              return new DecompiledClass(content, getOriginalLinesMapping(content));
+            }
+            finally {
+              DecompilerContext.setCurrentContext(threadContext);
+            }
+          }
+        }));
+      }
+
+      boolean checkDeterminism = DecompilerContext.getOption(IFernflowerPreferences.CHECK_DETERMINISM);
+
+      for (int i = 0; i < classes.size(); i++) {
+        DecompilerContext.getLogger().updateCounters(i, classes.size());
+        Future<DecompiledClass> result = results.get(i);
+        if (result != null) {
+          DecompiledClass decompiled = result.get();
+          results.set(i, null);
+          if (checkDeterminism) {
+            checkDeterminism(classes.get(i), decompiled);
+          }
+          saver.save(classes.get(i), entryNames.get(i), decompiled.content, decompiled.mapping);
+        }
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ex);
+    }
+    catch (ExecutionException ex) {
+      throw new RuntimeException(ex.getCause());
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  // decompiles the class again on the calling thread, bypassing the result cache, and compares the outcome
+  private void checkDeterminism(StructClass cl, DecompiledClass decompiled) {
+    CharSequence text = decompiledData.getFreshClassText(cl);
+    String content = text == null ? null : text.toString();
+    boolean same = content == null ? decompiled.content == null : decompiled.content != null && content.contentEquals(decompiled.content);
+    if (!same ||
+        !Arrays.equals(getOriginalLinesMapping(content), decompiled.mapping)) {
+      String message = "Output of class " + cl.qualifiedName + " depends on the number of threads";
+      DecompilerContext.getLogger().writeMessage(message, IFernflowerLogger.Severity.ERROR);
+    }
+  }
+
+  private static int[] getOriginalLinesMapping(CharSequence content) {
+    if (content != null && DecompilerContext.getOptions().bytecodeSourceMapping) {
+      return DecompilerContext.getBytecodeSourceMapper().getOriginalLinesMapping();
+    }
+    return null;
+  }
+
   public void setManifest(Manifest manifest) {
     this.manifest = manifest;
   }
@@ -170,4 +273,18 @@ public class ContextUnit {
   public List<StructClass> getClasses() {
     return classes;
   }
+
+  private interface ClassSaver {
+    void save(StructClass cl, String entryName, CharSequence content, int[] mapping);
+  }
+
+  private static class DecompiledClass {
+    private final CharSequence content;
+    private final int[] mapping;
+
+    private DecompiledClass(CharSequence content, int[] mapping) {
+      this.content = content;
+      this.mapping = mapping;
+    }
+  }
 }
@@ -20,4 +20,14 @@ public interface IDecompiledData {
   String getClassEntryName(StructClass cl, String entryname);
 
   String getClassContent(StructClass cl);
+
+  // the same content, handed to the result saver without copying it into a String
+  default CharSequence getClassText(StructClass cl) {
+    return getClassContent(cl);
+  }
+
+  // decompiles the class again, also if its content was kept from an earlier call or run
+  default CharSequence getFreshClassText(StructClass cl) {
+    return getClassText(cl);
+  }
 }
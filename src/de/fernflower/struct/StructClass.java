@@ -19,7 +19,7 @@ import de.fernflower.code.CodeConstants;
 import de.fernflower.struct.consts.ConstantPool;
 import de.fernflower.struct.consts.PrimitiveConstant;
 import de.fernflower.struct.lazy.LazyLoader;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 import de.fernflower.util.InterpreterUtil;
 import de.fernflower.util.VBStyleCollection;
 
@@ -59,13 +59,13 @@ public class StructClass extends StructMember {
   private final VBStyleCollection<StructField, String> fields;
   private final VBStyleCollection<StructMethod, String> methods;
 
-  private ConstantPool pool;
+  private volatile ConstantPool pool;
 
   public StructClass(byte[] bytes, boolean own, LazyLoader loader) throws IOException {
-    this(new DataInputFullStream(bytes), own, loader);
+    this(new DataInputBuffer(bytes), own, loader);
   }
 
-  public StructClass(DataInputFullStream in, boolean own, LazyLoader loader) throws IOException {
+  public StructClass(DataInputBuffer in, boolean own, LazyLoader loader) throws IOException {
     this.own = own;
     this.loader = loader;
 
@@ -139,9 +139,16 @@ public class StructClass extends StructMember {
     }
   }
 
+  // the pool may be released by one thread while another one still works with it, so callers keep their own reference
   public ConstantPool getPool() {
+    ConstantPool pool = this.pool;
     if (pool == null && loader != null) {
-      pool = loader.loadPool(qualifiedName);
+      synchronized (this) {
+        pool = this.pool;
+        if (pool == null) {
+          this.pool = pool = loader.loadPool(qualifiedName);
+        }
+      }
     }
     return pool;
   }
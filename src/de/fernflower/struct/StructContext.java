@@ -27,39 +27,140 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.Manifest;
 
 import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.extern.IFernflowerLogger.Severity;
+import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.main.extern.IResultSaver;
 import de.fernflower.struct.lazy.LazyLoader;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.struct.lazy.LibrarySummary;
+import de.fernflower.util.DataInputBuffer;
 
 public class StructContext {
+  private static final String VERSIONED_ENTRIES = "META-INF/versions/";
 
   private final IResultSaver saver;
   private final IDecompiledData decompiledData;
   private final LazyLoader loader;
   private final Map<String, ContextUnit> units = new HashMap<String, ContextUnit>();
+  // only modified while loading, read concurrently by the decompiler threads afterwards
   private final Map<String, StructClass> classes = new HashMap<String, StructClass>();
+  // library archive entries and summarized library classes by class name, parsed on first lookup
+  private final Map<String, LazyLoader.Link> libraryLinks = new ConcurrentHashMap<String, LazyLoader.Link>();
+  private final Map<String, DataInputBuffer> librarySummaries = new ConcurrentHashMap<String, DataInputBuffer>();
+  // looked up for classes not known here, e.g. libraries kept loaded by a server between requests
+  private StructContext libraryContext;
+  private ExecutorService parser;
+  private final List<ParsedClass> parsedClasses = new ArrayList<ParsedClass>();
+  private final Map<String, StructClass> libraryClasses = new ConcurrentHashMap<String, StructClass>();
+  // library classes are parsed with the options and symbols of the context they were added in
+  private final DecompilerContext decompilerContext;
 
   public StructContext(IResultSaver saver, IDecompiledData decompiledData, LazyLoader loader) {
     this.saver = saver;
     this.decompiledData = decompiledData;
     this.loader = loader;
+    this.decompilerContext = DecompilerContext.getCurrentContext();
 
     ContextUnit defaultUnit = new ContextUnit(ContextUnit.TYPE_FOLDER, null, "", true, saver, decompiledData);
     units.put("", defaultUnit);
   }
 
   public StructClass getClass(String name) {
-    return classes.get(name);
+    StructClass cl = classes.get(name);
+    if (cl == null && name != null) {
+      cl = libraryClasses.get(name);
+      if (cl == null && isLibraryClass(name)) {
+        cl = loadLibraryClass(name);
+      }
+      if (cl == null && libraryContext != null) {
+        cl = libraryContext.getClass(name);
+      }
+    }
+    return cl;
+  }
+
+  public boolean hasClass(String name) {
+    return classes.containsKey(name) || isLibraryClass(name) || (libraryContext != null && libraryContext.hasClass(name));
+  }
+
+  public void setLibraryContext(StructContext libraryContext) {
+    this.libraryContext = libraryContext;
+  }
+
+  private boolean isLibraryClass(String name) {
+    return libraryLinks.containsKey(name) || librarySummaries.containsKey(name);
+  }
+
+  private synchronized StructClass loadLibraryClass(String name) {
+    StructClass cl = libraryClasses.get(name);
+    if (cl != null) {
+      return cl;
+    }
+
+    DataInputBuffer summary = librarySummaries.get(name);
+    LazyLoader.Link link = libraryLinks.get(name);
+    if (summary == null && link == null) {
+      return null;
+    }
+
+    // the lookup may come from another context, e.g. of a request to a server sharing its libraries
+    DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+    if (decompilerContext != null) {
+      DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(decompilerContext));
+    }
+    try {
+      if (summary != null) {
+        // without a loader the pool is kept, there is no class file to read it from again
+        cl = new StructClass(summary.slice(0, summary.length()), false, null);
+      }
+      else {
+        cl = new StructClass(loader.getClassBuffer(link.externalPath, link.internalPath), false, loader);
+      }
+    }
+    catch (IOException ex) {
+      String message = "Corrupted class file: " + (summary != null ? name : link.externalPath + "!" + link.internalPath);
+      DecompilerContext.getLogger().writeMessage(message, ex);
+      libraryLinks.remove(name);
+      librarySummaries.remove(name);
+      return null;
+    }
+    finally {
+      DecompilerContext.setCurrentContext(threadContext);
+    }
+
+    // an entry whose name is not the name of its class, the class isn't found under it
+    if (!name.equals(cl.qualifiedName)) {
+      libraryLinks.remove(name);
+      librarySummaries.remove(name);
+      return null;
+    }
+
+    // own classes of the same name keep their link
+    if (link != null && loader.getClassLink(name) == null) {
+      loader.addClassLink(name, link);
+    }
+    libraryClasses.put(name, cl);
+    return cl;
   }
 
   public void reloadContext() throws IOException {
+    // library classes are parsed again on their next lookup
+    libraryClasses.clear();
+
     for (ContextUnit unit : units.values()) {
       for (StructClass cl : unit.getClasses()) {
         classes.remove(cl.qualifiedName);
@@ -82,8 +183,50 @@ public class StructContext {
     }
   }
 
+  // with more than one thread classes are parsed by a pool and registered afterwards, in the order they were found
   public void addSpace(File file, boolean isOwn) {
-    addSpace("", file, isOwn, 0);
+    int threads = DecompilerContext.getThreadCount();
+    if (threads < 2) {
+      addSpace("", file, isOwn, 0);
+      return;
+    }
+
+    parser = Executors.newWorkStealingPool(threads);
+    try {
+      addSpace("", file, isOwn, 0);
+
+      for (ParsedClass parsed : parsedClasses) {
+        try {
+          parsed.register(parsed.get());
+        }
+        catch (IOException ex) {
+          String message = "Corrupted class file: " + parsed.link.externalPath;
+          DecompilerContext.getLogger().writeMessage(message, ex);
+        }
+      }
+    }
+    finally {
+      parser.shutdownNow();
+      parser = null;
+      parsedClasses.clear();
+    }
+  }
+
+  private Future<StructClass> parse(final Callable<StructClass> task) {
+    final DecompilerContext parentContext = DecompilerContext.getCurrentContext();
+    return parser.submit(new Callable<StructClass>() {
+      @Override
+      public StructClass call() throws Exception {
+        DecompilerContext threadContext = DecompilerContext.getCurrentContext();
+        DecompilerContext.setCurrentContext(DecompilerContext.cloneContext(parentContext));
+        try {
+          return task.call();
+        }
+        finally {
+          DecompilerContext.setCurrentContext(threadContext);
+        }
+      }
+    });
   }
 
   private void addSpace(String path, File file, boolean isOwn, int level) {
@@ -126,18 +269,22 @@ public class StructContext {
         units.put(path, unit);
       }
 
-      if (filename.endsWith(".class")) {
-        try {
-          DataInputFullStream in = loader.getClassStream(file.getAbsolutePath(), null);
-          try {
-            StructClass cl = new StructClass(in, isOwn, loader);
-            classes.put(cl.qualifiedName, cl);
-            unit.addClass(cl, filename);
-            loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null));
-          }
-          finally {
-            in.close();
+      if (filename.endsWith(".class") && parser != null) {
+        final LazyLoader.Link link = new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null);
+        Future<StructClass> result = parse(new Callable<StructClass>() {
+          @Override
+          public StructClass call() throws IOException {
+            return new StructClass(loader.getClassBuffer(link.externalPath, null), isOwn, loader);
           }
+        });
+        parsedClasses.add(new ParsedClass(result, unit, filename, link));
+      }
+      else if (filename.endsWith(".class")) {
+        try {
+          StructClass cl = new StructClass(loader.getClassBuffer(file.getAbsolutePath(), null), isOwn, loader);
+          classes.put(cl.qualifiedName, cl);
+          unit.addClass(cl, filename);
+          loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.CLASS, file.getAbsolutePath(), null));
         }
         catch (IOException ex) {
           String message = "Corrupted class file: " + file;
@@ -152,6 +299,15 @@ public class StructContext {
 
   private void addArchive(String externalPath, File file, int type, boolean isOwn) throws IOException {
     DecompilerContext.getLogger().writeMessage("Adding Archive: " + file.getAbsolutePath(), Severity.INFO);
+
+    File summaryFile = null;
+    if (!isOwn) {
+      summaryFile = getLibrarySummaryFile(file);
+      if (summaryFile != null && addLibrarySummary(summaryFile, file)) {
+        return;
+      }
+    }
+
     FileSystem fs;
     try {
       URI uri = new URI("jar:file", null, file.toURI().getPath(), null);
@@ -163,46 +319,216 @@ public class StructContext {
     } catch (URISyntaxException e) {
       throw new RuntimeException(e);
     }
-    addFileSystem(fs, externalPath, file, type, isOwn);
+    Map<String, byte[]> summaryClasses = summaryFile != null ? new LinkedHashMap<String, byte[]>() : null;
+    Map<String, String> summaryEntries = summaryFile != null ? new LinkedHashMap<String, String>() : null;
+    addFileSystem(fs, externalPath, file, type, isOwn, summaryClasses, summaryEntries);
     fs.close();
+
+    if (summaryClasses != null) {
+      try {
+        LibrarySummary.write(summaryFile, file, summaryClasses, summaryEntries);
+      }
+      catch (IOException ex) {
+        DecompilerContext.getLogger().writeMessage("Cannot write library summary: " + summaryFile, ex);
+      }
+    }
   }
 
-  private void addFileSystem(FileSystem fs, String externalPath, File file, int type, boolean isOwn) throws IOException {
-    ContextUnit unit = units.computeIfAbsent(externalPath + "/" + file, k -> new ContextUnit(type, externalPath, file.getName(), isOwn, saver, decompiledData));
+  // summaries hold no code, so they are only used when library code is skipped anyway
+  private static File getLibrarySummaryFile(File archive) {
+    String directory = (String)DecompilerContext.getProperty(IFernflowerPreferences.LIBRARY_SUMMARY_DIR);
+    if (directory == null || directory.isEmpty() || !DecompilerContext.getOptions().librarySkipCode) {
+      return null;
+    }
+    return LibrarySummary.getSummaryFile(new File(directory), archive);
+  }
+
+  private boolean addLibrarySummary(File summaryFile, File archive) {
+    LibrarySummary summary;
+    try {
+      summary = LibrarySummary.read(summaryFile, archive);
+    }
+    catch (IOException ex) {
+      DecompilerContext.getLogger().writeMessage("Cannot read library summary: " + summaryFile, ex);
+      return false;
+    }
+    if (summary == null) {
+      return false;
+    }
+
+    for (Map.Entry<String, DataInputBuffer> entry : summary.getClasses().entrySet()) {
+      addLibraryClass(entry.getKey(), null, entry.getValue());
+    }
+    for (Map.Entry<String, String> entry : summary.getEntries().entrySet()) {
+      addLibraryClass(entry.getKey(), new LazyLoader.Link(LazyLoader.Link.ENTRY, archive.getAbsolutePath(), entry.getValue()), null);
+    }
+    return true;
+  }
+
+  // a library class hides the one of the same name in a library added before, as when all classes were parsed
+  // up front and the last one was kept
+  private void addLibraryClass(String name, LazyLoader.Link link, DataInputBuffer summary) {
+    libraryClasses.remove(name);
+    if (link != null) {
+      librarySummaries.remove(name);
+      libraryLinks.put(name, link);
+    }
+    else {
+      libraryLinks.remove(name);
+      librarySummaries.put(name, summary);
+    }
+  }
+
+  private void addFileSystem(FileSystem fs, String externalPath, File file, int type, boolean isOwn,
+                             Map<String, byte[]> summaryClasses, Map<String, String> summaryEntries) throws IOException {
+    String unitKey = externalPath + "/" + file;
+    ContextUnit unitFound = units.get(unitKey);
+    if (unitFound == null) {
+      unitFound = new ContextUnit(type, externalPath, file.getName(), isOwn, saver, decompiledData);
+      units.put(unitKey, unitFound);
+    }
+    final ContextUnit unit = unitFound;
+    final List<ArchiveEntry> entries = new ArrayList<ArchiveEntry>();
     Files.walkFileTree(fs.getPath("/"), new SimpleFileVisitor<Path>() {
       @Override
-      public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) throws IOException {
-        String name;
+      public FileVisitResult visitFile(final Path path, BasicFileAttributes attrs) throws IOException {
+        final String name;
         if (path.getNameCount() > 2 && "modules".equals(path.getName(0).toString()) && "jrt".equals(path.getFileSystem().provider().getScheme())) {
           name = path.subpath(2, path.getNameCount()).toString();
         } else {
           name = path.toString().substring(1);
         }
-        if (name.endsWith(".class")) {
+        if (name.endsWith(".class") && !isOwn) {
+          if (name.startsWith(VERSIONED_ENTRIES)) {
+            // classes for other runtimes in a multi-release jar, the base entry of the class is the one used
+            return FileVisitResult.CONTINUE;
+          }
+          // only indexed by the entry name, the entry is read if the class is ever looked up
+          String className = name.substring(0, name.length() - ".class".length());
+          addLibraryClass(className, new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name), null);
+          if (summaryClasses != null) {
+            try {
+              summaryClasses.put(className, LibrarySummary.strip(new DataInputBuffer(Files.readAllBytes(path))));
+            }
+            catch (IOException ex) {
+              // a broken class is left to the archive, it is read and reported there if it is ever looked up
+              summaryEntries.put(className, name);
+            }
+          }
+        } else if (name.endsWith(".class") && parser != null) {
+          LazyLoader.Link link = new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name);
+          Future<StructClass> result = parse(new Callable<StructClass>() {
+            @Override
+            public StructClass call() throws IOException {
+              return new StructClass(Files.readAllBytes(path), isOwn, loader);
+            }
+          });
+          final ParsedClass parsed = new ParsedClass(result, unit, name, link);
+          entries.add(new ArchiveEntry() {
+            @Override
+            public void add() throws IOException {
+              parsed.get();
+              parsedClasses.add(parsed);
+            }
+          });
+        } else if (name.endsWith(".class")) {
           byte[] bytes = Files.readAllBytes(path);
           StructClass cl = new StructClass(bytes, isOwn, loader);
           classes.put(cl.qualifiedName, cl);
           unit.addClass(cl, name);
           loader.addClassLink(cl.qualifiedName, new LazyLoader.Link(LazyLoader.Link.ENTRY, file.getAbsolutePath(), name));
         } else {
-          if ("META-INF/MANIFEST.MF".equals(name)) {
-            unit.setManifest(new Manifest(Files.newInputStream(path)));
-          }
-          unit.addOtherEntry(file.getAbsolutePath(), name);
+          addEntry(entries, new ArchiveEntry() {
+            @Override
+            public void add() throws IOException {
+              if ("META-INF/MANIFEST.MF".equals(name)) {
+                unit.setManifest(new Manifest(Files.newInputStream(path)));
+              }
+              unit.addOtherEntry(file.getAbsolutePath(), name);
+            }
+          });
         }
         return FileVisitResult.CONTINUE;
       }
 
       @Override
-      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-        String dirStr = dir.toString();
-        if (dirStr.length() > 1) unit.addDirEntry(dirStr.substring(1));
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        final String dirStr = dir.toString();
+        if (dirStr.length() > 1) {
+          addEntry(entries, new ArchiveEntry() {
+            @Override
+            public void add() {
+              unit.addDirEntry(dirStr.substring(1));
+            }
+          });
+        }
         return FileVisitResult.CONTINUE;
       }
     });
+
+    // the archive is closed afterwards, so its classes are read here. As on a single thread, a broken class
+    // stops the archive with all entries before it added.
+    for (ArchiveEntry entry : entries) {
+      entry.add();
+    }
+  }
+
+  // with more than one thread the entries of an archive are added in their order once its classes are parsed
+  private void addEntry(List<ArchiveEntry> entries, ArchiveEntry entry) throws IOException {
+    if (parser != null) {
+      entries.add(entry);
+    }
+    else {
+      entry.add();
+    }
   }
 
   public Map<String, StructClass> getClasses() {
-    return classes;
+    return Collections.unmodifiableMap(classes);
+  }
+
+  private interface ArchiveEntry {
+    void add() throws IOException;
+  }
+
+  private class ParsedClass {
+    private final Future<StructClass> result;
+    private final ContextUnit unit;
+    private final String entryName;
+    private final LazyLoader.Link link;
+
+    private ParsedClass(Future<StructClass> result, ContextUnit unit, String entryName, LazyLoader.Link link) {
+      this.result = result;
+      this.unit = unit;
+      this.entryName = entryName;
+      this.link = link;
+    }
+
+    private StructClass get() throws IOException {
+      try {
+        return result.get();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(ex);
+      }
+      catch (ExecutionException ex) {
+        // a fork/join pool wraps the checked exceptions of a task
+        Throwable cause = ex.getCause();
+        while (cause instanceof RuntimeException && cause.getCause() != null) {
+          cause = cause.getCause();
+        }
+        if (cause instanceof IOException) {
+          throw (IOException)cause;
+        }
+        throw new RuntimeException(ex.getCause());
+      }
+    }
+
+    private void register(StructClass cl) {
+      classes.put(cl.qualifiedName, cl);
+      unit.addClass(cl, entryName);
+      loader.addClassLink(cl.qualifiedName, link);
+    }
   }
 }
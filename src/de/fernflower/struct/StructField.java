@@ -16,7 +16,7 @@
 package de.fernflower.struct;
 
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 
 import java.io.IOException;
 
@@ -35,7 +35,7 @@ public class StructField extends StructMember {
   private final String descriptor;
 
 
-  public StructField(DataInputFullStream in, StructClass clStruct) throws IOException {
+  public StructField(DataInputBuffer in, StructClass clStruct) throws IOException {
     accessFlags = in.readUnsignedShort();
     int nameIndex = in.readUnsignedShort();
     int descriptorIndex = in.readUnsignedShort();
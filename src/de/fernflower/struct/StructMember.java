@@ -19,7 +19,7 @@ import de.fernflower.code.CodeConstants;
 import de.fernflower.struct.attr.StructGeneralAttribute;
 import de.fernflower.struct.attr.StructLocalVariableTableAttribute;
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 import de.fernflower.util.VBStyleCollection;
 
 import java.io.IOException;
@@ -46,7 +46,7 @@ public class StructMember {
     return hasModifier(CodeConstants.ACC_SYNTHETIC) || attributes.containsKey(StructGeneralAttribute.ATTRIBUTE_SYNTHETIC);
   }
 
-  protected VBStyleCollection<StructGeneralAttribute, String> readAttributes(DataInputFullStream in, ConstantPool pool) throws IOException {
+  protected VBStyleCollection<StructGeneralAttribute, String> readAttributes(DataInputBuffer in, ConstantPool pool) throws IOException {
     VBStyleCollection<StructGeneralAttribute, String> attributes = new VBStyleCollection<StructGeneralAttribute, String>();
 
     int length = in.readUnsignedShort();
@@ -71,16 +71,16 @@ public class StructMember {
     return attributes;
   }
 
-  protected StructGeneralAttribute readAttribute(DataInputFullStream in, ConstantPool pool, String name) throws IOException {
+  protected StructGeneralAttribute readAttribute(DataInputBuffer in, ConstantPool pool, String name) throws IOException {
     StructGeneralAttribute attribute = StructGeneralAttribute.createAttribute(name);
     if (attribute == null) {
       in.discard(in.readInt());
     }
     else {
-      byte[] data = new byte[in.readInt()];
-      in.readFull(data);
-      attribute.setInfo(data);
+      // parsed from a slice of the class file, which is not kept afterwards
+      attribute.setInfo(in.slice(in.readInt()));
       attribute.initContent(pool);
+      attribute.setInfo(null);
     }
     return attribute;
   }
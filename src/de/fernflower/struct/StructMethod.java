@@ -16,9 +16,10 @@
 package de.fernflower.struct;
 
 import de.fernflower.code.*;
+import de.fernflower.main.DecompilerContext;
 import de.fernflower.struct.attr.StructGeneralAttribute;
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 import de.fernflower.util.VBStyleCollection;
 
 import static de.fernflower.code.CodeConstants.*;
@@ -51,11 +52,10 @@ public class StructMethod extends StructMember {
   private int localVariables = 0;
   private int codeLength = 0;
   private int codeFullLength = 0;
-  private InstructionSequence seq;
-  private boolean expanded = false;
+  private int codeOffset = 0;
   private VBStyleCollection<StructGeneralAttribute, String> codeAttributes;
 
-  public StructMethod(DataInputFullStream in, StructClass clStruct) throws IOException {
+  public StructMethod(DataInputBuffer in, StructClass clStruct) throws IOException {
     classStruct = clStruct;
 
     accessFlags = in.readUnsignedShort();
@@ -75,9 +75,14 @@ public class StructMethod extends StructMember {
   }
 
   @Override
-  protected StructGeneralAttribute readAttribute(DataInputFullStream in, ConstantPool pool, String name) throws IOException {
+  protected StructGeneralAttribute readAttribute(DataInputBuffer in, ConstantPool pool, String name) throws IOException {
     if (StructGeneralAttribute.ATTRIBUTE_CODE.equals(name)) {
       if (!classStruct.isOwn()) {
+        if (DecompilerContext.getOptions().librarySkipCode) {
+          // nothing of the code of library classes is used, not even its attributes
+          in.discard(in.readInt());
+          return null;
+        }
         // skip code in foreign classes
         in.discard(8);
         in.discard(in.readInt());
@@ -88,6 +93,7 @@ public class StructMethod extends StructMember {
         in.discard(6);
         localVariables = in.readUnsignedShort();
         codeLength = in.readInt();
+        codeOffset = in.getPosition();
         in.discard(codeLength);
         int excLength = in.readUnsignedShort();
         in.discard(excLength * 8);
@@ -102,23 +108,17 @@ public class StructMethod extends StructMember {
     return super.readAttribute(in, pool, name);
   }
 
-  public void expandData() throws IOException {
-    if (containsCode && !expanded) {
-      byte[] code = classStruct.getLoader().loadBytecode(this, codeFullLength);
-      seq = parseBytecode(new DataInputFullStream(code), codeLength, classStruct.getPool());
-      expanded = true;
-    }
-  }
-
-  public void releaseResources() throws IOException {
-    if (containsCode && expanded) {
-      seq = null;
-      expanded = false;
+  // parses the code on every call, the sequence belongs to the caller. Null if the method has no code.
+  public InstructionSequence readInstructionSequence() throws IOException {
+    if (!containsCode) {
+      return null;
     }
+    DataInputBuffer code = classStruct.getLoader().loadBytecode(this, codeOffset, codeFullLength);
+    return parseBytecode(code, codeLength, classStruct.getPool());
   }
 
   @SuppressWarnings("AssignmentToForLoopParameter")
-  private InstructionSequence parseBytecode(DataInputFullStream in, int length, ConstantPool pool) throws IOException {
+  private InstructionSequence parseBytecode(DataInputBuffer in, int length, ConstantPool pool) throws IOException {
     VBStyleCollection<Instruction, Integer> instructions = new VBStyleCollection<Instruction, Integer>();
 
     int bytecode_version = classStruct.getBytecodeVersion();
@@ -382,11 +382,11 @@ public class StructMethod extends StructMember {
     return containsCode;
   }
 
-  public int getLocalVariables() {
-    return localVariables;
+  public int getCodeLength() {
+    return codeLength;
   }
 
-  public InstructionSequence getInstructionSequence() {
-    return seq;
+  public int getLocalVariables() {
+    return localVariables;
   }
 }
@@ -21,8 +21,8 @@ import de.fernflower.struct.consts.ConstantPool;
 import de.fernflower.struct.consts.PrimitiveConstant;
 import de.fernflower.struct.gen.FieldDescriptor;
 import de.fernflower.struct.gen.VarType;
+import de.fernflower.util.DataInputBuffer;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -37,7 +37,7 @@ public class StructAnnotationAttribute extends StructGeneralAttribute {
     annotations = parseAnnotations(pool, stream());
   }
 
-  public static List<AnnotationExprent> parseAnnotations(ConstantPool pool, DataInputStream data) throws IOException {
+  public static List<AnnotationExprent> parseAnnotations(ConstantPool pool, DataInputBuffer data) throws IOException {
     int len = data.readUnsignedShort();
     if (len > 0) {
       List<AnnotationExprent> annotations = new ArrayList<AnnotationExprent>(len);
@@ -51,7 +51,7 @@ public class StructAnnotationAttribute extends StructGeneralAttribute {
     }
   }
 
-  public static AnnotationExprent parseAnnotation(DataInputStream data, ConstantPool pool) throws IOException {
+  public static AnnotationExprent parseAnnotation(DataInputBuffer data, ConstantPool pool) throws IOException {
     String className = pool.getPrimitiveConstant(data.readUnsignedShort()).getString();
 
     List<String> names;
@@ -73,7 +73,7 @@ public class StructAnnotationAttribute extends StructGeneralAttribute {
     return new AnnotationExprent(new VarType(className).value, names, values);
   }
 
-  public static Exprent parseAnnotationElement(DataInputStream data, ConstantPool pool) throws IOException {
+  public static Exprent parseAnnotationElement(DataInputBuffer data, ConstantPool pool) throws IOException {
     int tag = data.readUnsignedByte();
 
     switch (tag) {
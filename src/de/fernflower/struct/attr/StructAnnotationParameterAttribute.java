@@ -17,8 +17,8 @@ package de.fernflower.struct.attr;
 
 import de.fernflower.modules.decompiler.exps.AnnotationExprent;
 import de.fernflower.struct.consts.ConstantPool;
+import de.fernflower.util.DataInputBuffer;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,7 +30,7 @@ public class StructAnnotationParameterAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputBuffer data = stream();
 
     int len = data.readUnsignedByte();
     if (len > 0) {
@@ -17,8 +17,8 @@ package de.fernflower.struct.attr;
 
 import de.fernflower.modules.decompiler.exps.AnnotationExprent;
 import de.fernflower.struct.consts.ConstantPool;
+import de.fernflower.util.DataInputBuffer;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -65,7 +65,7 @@ public class StructAnnotationTypeAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputBuffer data = stream();
 
     int len = data.readUnsignedByte();
     if (len > 0) {
@@ -82,7 +82,7 @@ public class StructAnnotationTypeAttribute extends StructGeneralAttribute {
     }
   }
 
-  private static AnnotationLocation parseAnnotationLocation(DataInputStream data) throws IOException {
+  private static AnnotationLocation parseAnnotationLocation(DataInputBuffer data) throws IOException {
     AnnotationLocation ann_location = new AnnotationLocation();
 
     // target type
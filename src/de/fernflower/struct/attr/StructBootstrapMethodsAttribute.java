@@ -15,7 +15,6 @@
  */
 package de.fernflower.struct.attr;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +22,7 @@ import java.util.List;
 import de.fernflower.struct.consts.ConstantPool;
 import de.fernflower.struct.consts.LinkConstant;
 import de.fernflower.struct.consts.PooledConstant;
+import de.fernflower.util.DataInputBuffer;
 
 public class StructBootstrapMethodsAttribute extends StructGeneralAttribute {
 
@@ -31,7 +31,7 @@ public class StructBootstrapMethodsAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputBuffer data = stream();
 
     int method_number = data.readUnsignedShort();
 
@@ -15,13 +15,13 @@
  */
 package de.fernflower.struct.attr;
 
-import java.io.DataInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import de.fernflower.struct.consts.ConstantPool;
+import de.fernflower.util.DataInputBuffer;
 
 public class StructExceptionsAttribute extends StructGeneralAttribute {
 
@@ -29,7 +29,7 @@ public class StructExceptionsAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputStream data = stream();
+    DataInputBuffer data = stream();
     int len = data.readUnsignedShort();
     if (len > 0) {
       throwsExceptions = new ArrayList<Integer>(len);
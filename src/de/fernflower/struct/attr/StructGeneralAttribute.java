@@ -16,7 +16,7 @@
 package de.fernflower.struct.attr;
 
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 
 import java.io.IOException;
 
@@ -50,7 +50,7 @@ public class StructGeneralAttribute {
   public static final String ATTRIBUTE_SOURCE_FILE = "SourceFile";
 
   private String name;
-  private byte[] info;
+  private DataInputBuffer info;
 
   public static StructGeneralAttribute createAttribute(String name) {
     StructGeneralAttribute attr;
@@ -110,13 +110,14 @@ public class StructGeneralAttribute {
     return attr;
   }
 
-  protected DataInputFullStream stream() {
-    return new DataInputFullStream(info);
+  // a new reader at the start of the attribute data, without copying it
+  protected DataInputBuffer stream() throws IOException {
+    return info.slice(0, info.length());
   }
 
   public void initContent(ConstantPool pool) throws IOException { }
 
-  public void setInfo(byte[] info) {
+  public void setInfo(DataInputBuffer info) {
     this.info = info;
   }
 
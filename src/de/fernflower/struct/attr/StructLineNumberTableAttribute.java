@@ -16,7 +16,7 @@
 package de.fernflower.struct.attr;
 
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 import de.fernflower.util.InterpreterUtil;
 
 import java.io.IOException;
@@ -34,7 +34,7 @@ public class StructLineNumberTableAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputFullStream data = stream();
+    DataInputBuffer data = stream();
 
     int len = data.readUnsignedShort() * 2;
     if (len > 0) {
@@ -16,7 +16,7 @@
 package de.fernflower.struct.attr;
 
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -39,7 +39,7 @@ public class StructLocalVariableTableAttribute extends StructGeneralAttribute {
 
   @Override
   public void initContent(ConstantPool pool) throws IOException {
-    DataInputFullStream data = stream();
+    DataInputBuffer data = stream();
 
     int len = data.readUnsignedShort();
     if (len > 0) {
@@ -22,99 +22,89 @@ import de.fernflower.struct.gen.FieldDescriptor;
 import de.fernflower.struct.gen.MethodDescriptor;
 import de.fernflower.struct.gen.NewClassNameBuilder;
 import de.fernflower.struct.gen.VarType;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
+import de.fernflower.util.SymbolTable;
 
-import java.io.DataInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @SuppressWarnings("AssignmentToForLoopParameter")
 public class ConstantPool implements NewClassNameBuilder {
   public static final int FIELD = 1;
   public static final int METHOD = 2;
 
-  private final List<PooledConstant> pool;
+  // the pool as it is in the class file, entries are read from it when they are first used
+  private final DataInputBuffer data;
+  private final byte[] tags;
+  private final int[] offsets;
+  private final AtomicReferenceArray<PooledConstant> constants;
   private final PoolInterceptor interceptor;
+  private final SymbolTable symbols;
 
-  public ConstantPool(DataInputStream in) throws IOException {
+  public ConstantPool(DataInputBuffer in) throws IOException {
+    int start = in.getPosition();
     int size = in.readUnsignedShort();
-    pool = new ArrayList<PooledConstant>(size);
-    BitSet[] nextPass = {new BitSet(size), new BitSet(size), new BitSet(size)};
+    tags = new byte[size];
+    offsets = new int[size];
+    constants = new AtomicReferenceArray<PooledConstant>(size);
 
-    // first dummy constant
-    pool.add(null);
-
-    // first pass: read the elements
+    // only the tag and the offset of the data are kept for every entry
     for (int i = 1; i < size; i++) {
       byte tag = (byte)in.readUnsignedByte();
+      tags[i] = tag;
+      offsets[i] = in.getPosition() - start;
 
       switch (tag) {
         case CodeConstants.CONSTANT_Utf8:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Utf8, in.readUTF()));
+          in.discard(in.readUnsignedShort());
           break;
 
         case CodeConstants.CONSTANT_Integer:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Integer, new Integer(in.readInt())));
-          break;
-
         case CodeConstants.CONSTANT_Float:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Float, new Float(in.readFloat())));
+        case CodeConstants.CONSTANT_Fieldref:
+        case CodeConstants.CONSTANT_Methodref:
+        case CodeConstants.CONSTANT_InterfaceMethodref:
+        case CodeConstants.CONSTANT_NameAndType:
+        case CodeConstants.CONSTANT_Dynamic:
+        case CodeConstants.CONSTANT_InvokeDynamic:
+          in.discard(4);
           break;
 
         case CodeConstants.CONSTANT_Long:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Long, new Long(in.readLong())));
-          pool.add(null);
-          i++;
-          break;
-
         case CodeConstants.CONSTANT_Double:
-          pool.add(new PrimitiveConstant(CodeConstants.CONSTANT_Double, new Double(in.readDouble())));
-          pool.add(null);
+          in.discard(8);
           i++;
           break;
 
         case CodeConstants.CONSTANT_Class:
         case CodeConstants.CONSTANT_String:
         case CodeConstants.CONSTANT_MethodType:
-          pool.add(new PrimitiveConstant(tag, in.readUnsignedShort()));
-          nextPass[0].set(i);
-          break;
-
-        case CodeConstants.CONSTANT_NameAndType:
-          pool.add(new LinkConstant(tag, in.readUnsignedShort(), in.readUnsignedShort()));
-          nextPass[0].set(i);
-          break;
-
-        case CodeConstants.CONSTANT_Fieldref:
-        case CodeConstants.CONSTANT_Methodref:
-        case CodeConstants.CONSTANT_InterfaceMethodref:
-        case CodeConstants.CONSTANT_InvokeDynamic:
-          pool.add(new LinkConstant(tag, in.readUnsignedShort(), in.readUnsignedShort()));
-          nextPass[1].set(i);
+        case CodeConstants.CONSTANT_Module:
+        case CodeConstants.CONSTANT_Package:
+          in.discard(2);
           break;
 
         case CodeConstants.CONSTANT_MethodHandle:
-          pool.add(new LinkConstant(tag, in.readUnsignedByte(), in.readUnsignedShort()));
-          nextPass[2].set(i);
+          in.discard(3);
           break;
-      }
-    }
 
-    // resolving complex pool elements
-    for (BitSet pass : nextPass) {
-      int idx = 0;
-      while ((idx = pass.nextSetBit(idx + 1)) > 0) {
-        pool.get(idx).resolveConstant(this);
+        default:
+          // the entries after it can't be found
+          throw new IOException("Invalid constant pool tag");
       }
     }
 
+    // a copy of just the pool, the pool lives as long as its class and must not keep the whole file, maybe mapped, alive
+    byte[] bytes = new byte[in.getPosition() - start];
+    in.slice(start, bytes.length).readFully(bytes);
+    data = new DataInputBuffer(bytes);
+
     // get global constant pool interceptor instance, if any available
     interceptor = DecompilerContext.getPoolInterceptor();
+    symbols = DecompilerContext.getSymbolTable();
   }
 
-  public static void skipPool(DataInputFullStream in) throws IOException {
+  public static void skipPool(DataInputBuffer in) throws IOException {
     int size = in.readUnsignedShort();
 
     for (int i = 1; i < size; i++) {
@@ -129,6 +119,7 @@ public class ConstantPool implements NewClassNameBuilder {
         case CodeConstants.CONSTANT_Methodref:
         case CodeConstants.CONSTANT_InterfaceMethodref:
         case CodeConstants.CONSTANT_NameAndType:
+        case CodeConstants.CONSTANT_Dynamic:
         case CodeConstants.CONSTANT_InvokeDynamic:
           in.discard(4);
           break;
@@ -142,17 +133,23 @@ public class ConstantPool implements NewClassNameBuilder {
         case CodeConstants.CONSTANT_Class:
         case CodeConstants.CONSTANT_String:
         case CodeConstants.CONSTANT_MethodType:
+        case CodeConstants.CONSTANT_Module:
+        case CodeConstants.CONSTANT_Package:
           in.discard(2);
           break;
 
         case CodeConstants.CONSTANT_MethodHandle:
           in.discard(3);
+          break;
+
+        default:
+          throw new IOException("Invalid constant pool tag");
       }
     }
   }
 
   public int size() {
-    return pool.size();
+    return tags.length;
   }
 
   public String[] getClassElement(int elementType, String className, int nameIndex, int descriptorIndex) {
@@ -167,20 +164,103 @@ public class ConstantPool implements NewClassNameBuilder {
 
       String newElement = interceptor.getName(className + ' ' + elementName + ' ' + descriptor);
       if (newElement != null) {
-        elementName = newElement.split(" ")[1];
+        elementName = symbols.intern(newElement.split(" ")[1]);
       }
 
       String newDescriptor = buildNewDescriptor(elementType == FIELD, descriptor);
       if (newDescriptor != null) {
-        descriptor = newDescriptor;
+        descriptor = symbols.intern(newDescriptor);
       }
     }
 
     return new String[]{elementName, descriptor};
   }
 
+  // the entry as it is in the class file, created on first use and shared by all threads
   public PooledConstant getConstant(int index) {
-    return pool.get(index);
+    PooledConstant constant = constants.get(index);
+    if (constant == null && tags[index] != 0) {
+      try {
+        constant = readConstant(index);
+      }
+      catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+      if (!constants.compareAndSet(index, null, constant)) {
+        constant = constants.get(index);
+      }
+    }
+    return constant;
+  }
+
+  private PooledConstant readConstant(int index) throws IOException {
+    int tag = tags[index];
+    int offset = offsets[index];
+
+    switch (tag) {
+      case CodeConstants.CONSTANT_Utf8:
+        return new PrimitiveConstant(tag, symbols.intern(data.getUTF(offset)));
+
+      case CodeConstants.CONSTANT_Integer:
+        return new PrimitiveConstant(tag, Integer.valueOf(data.getInt(offset)));
+
+      case CodeConstants.CONSTANT_Float:
+        return new PrimitiveConstant(tag, Float.valueOf(Float.intBitsToFloat(data.getInt(offset))));
+
+      case CodeConstants.CONSTANT_Long:
+        return new PrimitiveConstant(tag, Long.valueOf(data.getLong(offset)));
+
+      case CodeConstants.CONSTANT_Double:
+        return new PrimitiveConstant(tag, Double.valueOf(Double.longBitsToDouble(data.getLong(offset))));
+
+      case CodeConstants.CONSTANT_Class:
+      case CodeConstants.CONSTANT_String:
+      case CodeConstants.CONSTANT_MethodType: {
+        int utfIndex = data.getUnsignedShort(offset);
+        PrimitiveConstant cn = new PrimitiveConstant(tag, getString(utfIndex));
+        cn.index = utfIndex;
+        return cn;
+      }
+
+      case CodeConstants.CONSTANT_NameAndType: {
+        int nameIndex = data.getUnsignedShort(offset);
+        int descriptorIndex = data.getUnsignedShort(offset + 2);
+        return newLinkConstant(tag, nameIndex, descriptorIndex, null, getString(nameIndex), getString(descriptorIndex));
+      }
+
+      case CodeConstants.CONSTANT_Fieldref:
+      case CodeConstants.CONSTANT_Methodref:
+      case CodeConstants.CONSTANT_InterfaceMethodref:
+      case CodeConstants.CONSTANT_InvokeDynamic: {
+        int index1 = data.getUnsignedShort(offset);
+        int index2 = data.getUnsignedShort(offset + 2);
+        // the first index of an invokedynamic is a bootstrap method
+        String classname = tag == CodeConstants.CONSTANT_InvokeDynamic ? null : getString(index1);
+        LinkConstant nametype = (LinkConstant)getConstant(index2);
+        return newLinkConstant(tag, index1, index2, classname, nametype.elementname, nametype.descriptor);
+      }
+
+      case CodeConstants.CONSTANT_MethodHandle: {
+        int kind = data.getUnsignedByte(offset);
+        int refIndex = data.getUnsignedShort(offset + 1);
+        LinkConstant ref = (LinkConstant)getConstant(refIndex);
+        return newLinkConstant(tag, kind, refIndex, ref.classname, ref.elementname, ref.descriptor);
+      }
+    }
+
+    return null;
+  }
+
+  // the string of a Utf8 entry, or the name of a Class entry, never renamed
+  private String getString(int index) {
+    return ((PrimitiveConstant)getConstant(index)).getString();
+  }
+
+  private static LinkConstant newLinkConstant(int tag, int index1, int index2, String classname, String elementname, String descriptor) {
+    LinkConstant ln = new LinkConstant(tag, classname, elementname, descriptor);
+    ln.index1 = index1;
+    ln.index2 = index2;
+    return ln;
   }
 
   public PrimitiveConstant getPrimitiveConstant(int index) {
@@ -15,6 +15,8 @@
  */
 package de.fernflower.struct.consts;
 
+import de.fernflower.struct.gen.MethodDescriptor;
+
 import java.io.DataOutputStream;
 import java.io.IOException;
 
@@ -135,31 +137,9 @@ public class LinkConstant extends PooledConstant {
   }
 
   private void resolveDescriptor(String descr) {
-
-    String[] arr = descr.split("[()]");
-    String par = arr[1];
-
-    int index = 0, counter = 0;
-    int len = par.length();
-
-    while (index < len) {
-
-      char c = par.charAt(index);
-      if (c == 'L') {
-        index = par.indexOf(";", index);
-      }
-      else if (c == '[') {
-        index++;
-        continue;
-      }
-
-      counter++;
-      index++;
-    }
-
-    paramCount = counter;
-    isVoid = "V".equals(arr[2]);
-    returnCategory2 = ("D".equals(arr[2]) || "J".equals(arr[2]));
+    MethodDescriptor md = MethodDescriptor.parseDescriptor(descr);
+    paramCount = md.params.length;
+    isVoid = md.ret.type == TYPE_VOID;
+    returnCategory2 = md.ret.stackSize == 2;
   }
 }
-
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.struct.gen;
+
+import de.fernflower.main.DecompilerContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Parsed descriptors of a decompiler context. Descriptors and their types are immutable, so every descriptor is
+// parsed once and all its uses share the same instances.
+public class DescriptorCache {
+  private final ConcurrentHashMap<String, FieldDescriptor> fieldDescriptors = new ConcurrentHashMap<String, FieldDescriptor>();
+  private final ConcurrentHashMap<String, MethodDescriptor> methodDescriptors = new ConcurrentHashMap<String, MethodDescriptor>();
+
+  // the cache of the current context, null outside of a context
+  static DescriptorCache getCurrent() {
+    return DecompilerContext.getCurrentContext() != null ? DecompilerContext.getDescriptorCache() : null;
+  }
+
+  public FieldDescriptor getFieldDescriptor(String descriptor) {
+    FieldDescriptor fd = fieldDescriptors.get(descriptor);
+    if (fd == null) {
+      fd = new FieldDescriptor(descriptor);
+      FieldDescriptor existing = fieldDescriptors.putIfAbsent(descriptor, fd);
+      if (existing != null) {
+        fd = existing;
+      }
+    }
+    return fd;
+  }
+
+  public MethodDescriptor getMethodDescriptor(String descriptor) {
+    MethodDescriptor md = methodDescriptors.get(descriptor);
+    if (md == null) {
+      md = MethodDescriptor.parse(descriptor, this);
+      MethodDescriptor existing = methodDescriptors.putIfAbsent(descriptor, md);
+      if (existing != null) {
+        md = existing;
+      }
+    }
+    return md;
+  }
+}
@@ -27,13 +27,15 @@ public class FieldDescriptor {
   public final VarType type;
   public final String descriptorString;
 
-  private FieldDescriptor(String descriptor) {
+  FieldDescriptor(String descriptor) {
     type = new VarType(descriptor);
     descriptorString = descriptor;
   }
 
+  // shared with all other uses of the descriptor in the current context
   public static FieldDescriptor parseDescriptor(String descriptor) {
-    return new FieldDescriptor(descriptor);
+    DescriptorCache cache = DescriptorCache.getCurrent();
+    return cache != null ? cache.getFieldDescriptor(descriptor) : new FieldDescriptor(descriptor);
   }
 
   public String buildNewDescriptor(NewClassNameBuilder builder) {
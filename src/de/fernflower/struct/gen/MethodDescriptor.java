@@ -31,7 +31,13 @@ public class MethodDescriptor {
     this.ret = ret;
   }
 
+  // shared with all other uses of the descriptor in the current context, the parameters must not be changed
   public static MethodDescriptor parseDescriptor(String descriptor) {
+    DescriptorCache cache = DescriptorCache.getCurrent();
+    return cache != null ? cache.getMethodDescriptor(descriptor) : parse(descriptor, null);
+  }
+
+  static MethodDescriptor parse(String descriptor, DescriptorCache cache) {
     int parenth = descriptor.lastIndexOf(')');
     if (descriptor.length() < 2 || parenth < 0 || descriptor.charAt(0) != '(') {
       throw new IllegalArgumentException("Invalid descriptor: " + descriptor);
@@ -66,18 +72,22 @@ public class MethodDescriptor {
 
       params = new VarType[lst.size()];
       for (int i = 0; i < lst.size(); i++) {
-        params[i] = new VarType(lst.get(i));
+        params[i] = parseType(lst.get(i), cache);
       }
     }
     else {
       params = VarType.EMPTY_ARRAY;
     }
 
-    VarType ret = new VarType(descriptor.substring(parenth + 1));
+    VarType ret = parseType(descriptor.substring(parenth + 1), cache);
 
     return new MethodDescriptor(params, ret);
   }
 
+  private static VarType parseType(String descriptor, DescriptorCache cache) {
+    return cache != null ? cache.getFieldDescriptor(descriptor).type : new VarType(descriptor);
+  }
+
   public String buildNewDescriptor(NewClassNameBuilder builder) {
     boolean updated = false;
 
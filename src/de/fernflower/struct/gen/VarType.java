@@ -292,6 +292,12 @@ public class VarType {  // TODO: optimize switch
     return type == vt.type && arrayDim == vt.arrayDim && InterpreterUtil.equalObjects(value, vt.value);
   }
 
+  @Override
+  public int hashCode() {
+    int result = type * 31 + arrayDim;
+    return value == null ? result : result * 31 + value.hashCode();
+  }
+
   @Override
   public String toString() {
     StringBuilder res = new StringBuilder();
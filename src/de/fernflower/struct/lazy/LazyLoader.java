@@ -17,18 +17,25 @@ package de.fernflower.struct.lazy;
 
 import de.fernflower.main.extern.IBytecodeProvider;
 import de.fernflower.struct.StructMethod;
-import de.fernflower.struct.attr.StructGeneralAttribute;
 import de.fernflower.struct.consts.ConstantPool;
-import de.fernflower.util.DataInputFullStream;
+import de.fernflower.util.DataInputBuffer;
+import de.fernflower.util.InterpreterUtil;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LazyLoader {
+  // total size of the class files kept in memory or mapped
+  private static final long CLASS_CACHE_SIZE = 64L * 1024 * 1024;
 
-  private final Map<String, Link> mapClassLinks = new HashMap<String, Link>();
+  private final Map<String, Link> mapClassLinks = new ConcurrentHashMap<String, Link>();
   private final IBytecodeProvider provider;
+  private final Map<Link, ByteBuffer> classCache = new LinkedHashMap<Link, ByteBuffer>(16, 0.75f, true);
+  private long classCacheSize = 0;
 
   public LazyLoader(IBytecodeProvider provider) {
     this.provider = provider;
@@ -43,111 +50,74 @@ public class LazyLoader {
   }
 
   public Link getClassLink(String classname) {
-    return mapClassLinks.get(classname);
+    return classname == null ? null : mapClassLinks.get(classname);
   }
 
   public ConstantPool loadPool(String classname) {
     try {
-      DataInputFullStream in = getClassStream(classname);
+      DataInputBuffer in = getClassBuffer(classname);
       if (in == null) return null;
 
-      try {
-        in.discard(8);
-        return new ConstantPool(in);
-      }
-      finally {
-        in.close();
-      }
+      in.discard(8);
+      return new ConstantPool(in);
     }
     catch (IOException ex) {
       throw new RuntimeException(ex);
     }
   }
 
-  public byte[] loadBytecode(StructMethod mt, int codeFullLength) {
-    String className = mt.getClassStruct().qualifiedName;
-
+  // the code of a method is a slice of the class file, its offset is recorded when the class is parsed
+  public DataInputBuffer loadBytecode(StructMethod mt, int codeOffset, int codeFullLength) {
     try {
-      DataInputFullStream in = getClassStream(className);
-      if (in == null) return null;
+      DataInputBuffer in = getClassBuffer(mt.getClassStruct().qualifiedName);
+      return in == null ? null : in.slice(codeOffset, codeFullLength);
+    }
+    catch (IOException ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
+  private ByteBuffer getClassBytes(String qualifiedClassName) throws IOException {
+    Link link = getClassLink(qualifiedClassName);
+    if (link == null) {
+      return null;
+    }
 
-      try {
-        in.discard(8);
-
-        ConstantPool pool = mt.getClassStruct().getPool();
-        if (pool == null) {
-          pool = new ConstantPool(in);
-        }
-        else {
-          ConstantPool.skipPool(in);
-        }
-
-        in.discard(6);
-
-        // interfaces
-        in.discard(in.readUnsignedShort() * 2);
-
-        // fields
-        int size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(6);
-          skipAttributes(in);
-        }
-
-        // methods
-        size = in.readUnsignedShort();
-        for (int i = 0; i < size; i++) {
-          in.discard(2);
-
-          int nameIndex = in.readUnsignedShort();
-          int descriptorIndex = in.readUnsignedShort();
-
-          String[] values = pool.getClassElement(ConstantPool.METHOD, className, nameIndex, descriptorIndex);
-          if (!mt.getName().equals(values[0]) || !mt.getDescriptor().equals(values[1])) {
-            skipAttributes(in);
-            continue;
-          }
-
-          int attrSize = in.readUnsignedShort();
-          for (int j = 0; j < attrSize; j++) {
-            int attrNameIndex = in.readUnsignedShort();
-            String attrName = pool.getPrimitiveConstant(attrNameIndex).getString();
-            if (!StructGeneralAttribute.ATTRIBUTE_CODE.equals(attrName)) {
-              in.discard(in.readInt());
-              continue;
-            }
-
-            in.discard(12);
-            byte[] code = new byte[codeFullLength];
-            in.readFull(code);
-            return code;
-          }
-
-          break;
-        }
+    synchronized (classCache) {
+      ByteBuffer bytes = classCache.get(link);
+      if (bytes != null) {
+        return bytes;
       }
-      finally {
-        in.close();
+    }
+
+    ByteBuffer bytes = provider.getBytecodeBuffer(link.externalPath, link.internalPath);
+
+    synchronized (classCache) {
+      if (classCache.put(link, bytes) == null) {
+        classCacheSize += bytes.capacity();
       }
 
-      return null;
-    }
-    catch (IOException ex) {
-      throw new RuntimeException(ex);
+      // least recently used classes are dropped first, the new one is always kept
+      Iterator<Map.Entry<Link, ByteBuffer>> iterator = classCache.entrySet().iterator();
+      while (classCacheSize > CLASS_CACHE_SIZE && classCache.size() > 1) {
+        classCacheSize -= iterator.next().getValue().capacity();
+        iterator.remove();
+      }
     }
+
+    return bytes;
   }
 
-  public DataInputFullStream getClassStream(String externalPath, String internalPath) throws IOException {
-    byte[] bytes = provider.getBytecode(externalPath, internalPath);
-    return new DataInputFullStream(bytes);
+  public DataInputBuffer getClassBuffer(String externalPath, String internalPath) throws IOException {
+    return new DataInputBuffer(provider.getBytecodeBuffer(externalPath, internalPath));
   }
 
-  public DataInputFullStream getClassStream(String qualifiedClassName) throws IOException {
-    Link link = mapClassLinks.get(qualifiedClassName);
-    return link == null ? null : getClassStream(link.externalPath, link.internalPath);
+  public DataInputBuffer getClassBuffer(String qualifiedClassName) throws IOException {
+    ByteBuffer bytes = getClassBytes(qualifiedClassName);
+    return bytes == null ? null : new DataInputBuffer(bytes);
   }
 
-  public static void skipAttributes(DataInputFullStream in) throws IOException {
+  public static void skipAttributes(DataInputBuffer in) throws IOException {
     int length = in.readUnsignedShort();
     for (int i = 0; i < length; i++) {
       in.discard(2);
@@ -169,5 +139,21 @@ public class LazyLoader {
       this.externalPath = externalPath;
       this.internalPath = internalPath;
     }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (o == null || !(o instanceof Link)) return false;
+
+      Link link = (Link)o;
+      return type == link.type &&
+             InterpreterUtil.equalObjects(externalPath, link.externalPath) &&
+             InterpreterUtil.equalObjects(internalPath, link.internalPath);
+    }
+
+    @Override
+    public int hashCode() {
+      return externalPath.hashCode() * 31 + (internalPath == null ? 0 : internalPath.hashCode());
+    }
   }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.struct.lazy;
+
+import de.fernflower.code.CodeConstants;
+import de.fernflower.struct.attr.StructGeneralAttribute;
+import de.fernflower.util.DataInputBuffer;
+import de.fernflower.util.InterpreterUtil;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Classes of a library archive without their code, written once and read by later runs instead of the archive.
+  The summary is only valid for the archive of the recorded path, size and modification time.
+
+  summary {
+    u4 magic;
+    u4 version;
+    utf archive_path;
+    u8 archive_size;
+    u8 archive_modified;
+    u4 classes_count;
+    class classes[classes_count];
+    u4 entries_count;
+    entry entries[entries_count];
+  }
+
+  class {
+    utf name;
+    u4 length;
+    u1 class_file[length];
+  }
+
+  entry {
+    utf name;
+    utf entry_name;
+  }
+
+  Classes are kept in the class file format with all attributes dropped that are not read by StructClass,
+  among them Code, so they can be parsed as usual. Classes that couldn't be stripped are kept as the name of
+  their archive entry and are read from the archive if they are looked up, as without a summary.
+*/
+public class LibrarySummary {
+  private static final int MAGIC = 0x46464C53;
+  private static final int VERSION = 2;
+
+  private final Map<String, DataInputBuffer> classes;
+  private final Map<String, String> entries;
+
+  private LibrarySummary(Map<String, DataInputBuffer> classes, Map<String, String> entries) {
+    this.classes = classes;
+    this.entries = entries;
+  }
+
+  // class name -> class file, every buffer has to be sliced again before reading it
+  public Map<String, DataInputBuffer> getClasses() {
+    return classes;
+  }
+
+  // class name -> archive entry of the classes left out
+  public Map<String, String> getEntries() {
+    return entries;
+  }
+
+  public static File getSummaryFile(File directory, File archive) {
+    String path = archive.getAbsolutePath();
+    return new File(directory, archive.getName() + "." + Integer.toHexString(path.hashCode()) + ".summary");
+  }
+
+  // null if there is no summary of the archive as it is now
+  public static LibrarySummary read(File summaryFile, File archive) throws IOException {
+    if (!summaryFile.isFile()) {
+      return null;
+    }
+
+    DataInputBuffer in = new DataInputBuffer(InterpreterUtil.mapFile(summaryFile));
+    if (in.length() < 8 || in.readInt() != MAGIC || in.readInt() != VERSION) {
+      return null;
+    }
+    if (!archive.getAbsolutePath().equals(in.readUTF()) || in.readLong() != archive.length() || in.readLong() != archive.lastModified()) {
+      return null;
+    }
+
+    int count = in.readInt();
+    Map<String, DataInputBuffer> classes = new LinkedHashMap<String, DataInputBuffer>();
+    for (int i = 0; i < count; i++) {
+      String name = in.readUTF();
+      classes.put(name, in.slice(in.readInt()));
+    }
+
+    count = in.readInt();
+    Map<String, String> entries = new LinkedHashMap<String, String>();
+    for (int i = 0; i < count; i++) {
+      String name = in.readUTF();
+      entries.put(name, in.readUTF());
+    }
+
+    return new LibrarySummary(classes, entries);
+  }
+
+  public static void write(File summaryFile, File archive, Map<String, byte[]> classes, Map<String, String> entries)
+    throws IOException {
+    // written aside and moved, other runs never see a partial summary
+    summaryFile.getAbsoluteFile().getParentFile().mkdirs();
+    File temp = new File(summaryFile.getPath() + ".tmp");
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+    try {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeUTF(archive.getAbsolutePath());
+      out.writeLong(archive.length());
+      out.writeLong(archive.lastModified());
+      out.writeInt(classes.size());
+      for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeInt(entry.getValue().length);
+        out.write(entry.getValue());
+      }
+      out.writeInt(entries.size());
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeUTF(entry.getValue());
+      }
+    }
+    finally {
+      out.close();
+    }
+
+    try {
+      Files.move(temp.toPath(), summaryFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    finally {
+      temp.delete();
+    }
+  }
+
+  // the class file with the pool as it is and only the attributes of the class and its members that are parsed
+  public static byte[] strip(DataInputBuffer in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(in.length());
+    DataOutputStream out = new DataOutputStream(bytes);
+
+    in.discard(8);
+    BitSet keptNames = readAttributeNames(in);
+    in.discard(6);
+    in.discard(2 * in.readUnsignedShort());
+    copy(in, 0, in.getPosition(), out);
+
+    for (int i = 0; i < 2; i++) { // fields and methods
+      int count = in.readUnsignedShort();
+      out.writeShort(count);
+      for (int j = 0; j < count; j++) {
+        copy(in, in.getPosition(), 6, out);
+        in.discard(6);
+        copyAttributes(in, keptNames, out);
+      }
+    }
+
+    copyAttributes(in, keptNames, out);
+
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  // pool indices of the attribute names StructGeneralAttribute knows
+  private static BitSet readAttributeNames(DataInputBuffer in) throws IOException {
+    int size = in.readUnsignedShort();
+    BitSet names = new BitSet(size);
+
+    for (int i = 1; i < size; i++) {
+      switch (in.readUnsignedByte()) {
+        case CodeConstants.CONSTANT_Utf8:
+          if (StructGeneralAttribute.createAttribute(in.readUTF()) != null) {
+            names.set(i);
+          }
+          break;
+
+        case CodeConstants.CONSTANT_Integer:
+        case CodeConstants.CONSTANT_Float:
+        case CodeConstants.CONSTANT_Fieldref:
+        case CodeConstants.CONSTANT_Methodref:
+        case CodeConstants.CONSTANT_InterfaceMethodref:
+        case CodeConstants.CONSTANT_NameAndType:
+        case CodeConstants.CONSTANT_Dynamic:
+        case CodeConstants.CONSTANT_InvokeDynamic:
+          in.discard(4);
+          break;
+
+        case CodeConstants.CONSTANT_Long:
+        case CodeConstants.CONSTANT_Double:
+          in.discard(8);
+          i++;
+          break;
+
+        case CodeConstants.CONSTANT_Class:
+        case CodeConstants.CONSTANT_String:
+        case CodeConstants.CONSTANT_MethodType:
+        case CodeConstants.CONSTANT_Module:
+        case CodeConstants.CONSTANT_Package:
+          in.discard(2);
+          break;
+
+        case CodeConstants.CONSTANT_MethodHandle:
+          in.discard(3);
+          break;
+
+        default:
+          throw new IOException("Invalid constant pool tag");
+      }
+    }
+
+    return names;
+  }
+
+  private static void copyAttributes(DataInputBuffer in, BitSet keptNames, DataOutputStream out) throws IOException {
+    int count = in.readUnsignedShort();
+    int kept = 0;
+    ByteArrayOutputStream attributes = new ByteArrayOutputStream();
+    DataOutputStream attributesOut = new DataOutputStream(attributes);
+
+    for (int i = 0; i < count; i++) {
+      int start = in.getPosition();
+      int nameIndex = in.readUnsignedShort();
+      in.discard(in.readInt());
+      if (keptNames.get(nameIndex)) {
+        copy(in, start, in.getPosition() - start, attributesOut);
+        kept++;
+      }
+    }
+
+    out.writeShort(kept);
+    attributes.writeTo(out);
+  }
+
+  private static void copy(DataInputBuffer in, int offset, int length, DataOutputStream out) throws IOException {
+    byte[] bytes = new byte[length];
+    in.slice(offset, length).readFully(bytes);
+    out.write(bytes);
+  }
+}
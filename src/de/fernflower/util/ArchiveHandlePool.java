@@ -0,0 +1,145 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipFile;
+
+// Open archives shared by the bytecode provider and the result savers. An archive stays open while it is in use,
+// archives no one uses are kept open up to a limit on open files and then closed least recently used first.
+public class ArchiveHandlePool {
+  private static final int MAX_OPEN_ARCHIVES = 16;
+
+  private static final ArchiveHandlePool INSTANCE = new ArchiveHandlePool(MAX_OPEN_ARCHIVES);
+
+  private final int maxOpenArchives;
+  private final Map<String, Handle> handles = new LinkedHashMap<String, Handle>(16, 0.75f, true);
+
+  public ArchiveHandlePool(int maxOpenArchives) {
+    this.maxOpenArchives = maxOpenArchives;
+  }
+
+  public static ArchiveHandlePool getInstance() {
+    return INSTANCE;
+  }
+
+  // every handle has to be closed once by the caller
+  public Handle acquire(File file) throws IOException {
+    String path = file.getAbsolutePath();
+
+    synchronized (this) {
+      Handle handle = handles.get(path);
+      if (handle != null) {
+        handle.references++;
+        return handle;
+      }
+    }
+
+    // opening reads the central directory, so it is done without blocking the other archives
+    Handle opened = new Handle(file, new ZipFile(file));
+
+    Handle handle;
+    synchronized (this) {
+      handle = handles.get(path);
+      if (handle == null) {
+        handle = opened;
+        handles.put(path, handle);
+      }
+      handle.references++;
+
+      closeUnused(maxOpenArchives);
+    }
+
+    if (handle != opened) {
+      opened.closeArchives(); // another thread published the archive first
+    }
+
+    return handle;
+  }
+
+  private synchronized void release(Handle handle) {
+    handle.references--;
+    closeUnused(maxOpenArchives);
+  }
+
+  // closes all archives not in use, e.g. at the end of a run so that changed files are opened again next time
+  public synchronized void closeUnused() {
+    closeUnused(0);
+  }
+
+  private void closeUnused(int keep) {
+    Iterator<Handle> iterator = handles.values().iterator();
+    while (handles.size() > keep && iterator.hasNext()) {
+      Handle handle = iterator.next();
+      if (handle.references == 0) {
+        iterator.remove();
+        handle.closeArchives();
+      }
+    }
+  }
+
+  public class Handle implements Closeable {
+    private final File file;
+    private final ZipFile archive;
+    private RawZipArchive rawArchive;
+    private boolean rawArchiveRead;
+    private int references;
+
+    private Handle(File file, ZipFile archive) {
+      this.file = file;
+      this.archive = archive;
+    }
+
+    public ZipFile getArchive() {
+      return archive;
+    }
+
+    // read on first use, null if the central directory can't be read without java.util.zip
+    public synchronized RawZipArchive getRawArchive() {
+      if (!rawArchiveRead) {
+        rawArchiveRead = true;
+        try {
+          rawArchive = new RawZipArchive(file);
+        }
+        catch (IOException ignored) { }
+      }
+      return rawArchive;
+    }
+
+    private synchronized void closeArchives() {
+      try {
+        archive.close();
+      }
+      catch (IOException ignored) { }
+      try {
+        if (rawArchive != null) {
+          rawArchive.close();
+        }
+      }
+      catch (IOException ignored) { }
+    }
+
+    @Override
+    public void close() {
+      release(this);
+    }
+  }
+}
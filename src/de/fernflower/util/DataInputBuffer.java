@@ -0,0 +1,205 @@
+/*
+ * Copyright 2000-2014 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+// Class file reader over a byte buffer, which may be a mapped file. Reads big-endian values at the current position,
+// or at an absolute offset, without copying or locking. Offsets are relative to the start of the buffer.
+// Not thread-safe, every reader has its own position, but readers over the same bytes may be used by different threads.
+public class DataInputBuffer {
+  private final ByteBuffer buffer;
+  private final int length;
+  private int position = 0;
+
+  public DataInputBuffer(byte[] bytes) {
+    this(ByteBuffer.wrap(bytes));
+  }
+
+  public DataInputBuffer(ByteBuffer buffer) {
+    this.buffer = buffer.slice();
+    this.length = this.buffer.limit();
+  }
+
+  public int getPosition() {
+    return position;
+  }
+
+  public void setPosition(int position) throws IOException {
+    if (position < 0 || position > length) {
+      throw new EOFException();
+    }
+    this.position = position;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public int available() {
+    return length - position;
+  }
+
+  // moves the position by n bytes and returns the old one
+  private int advance(int n) throws IOException {
+    int pos = position;
+    if (n < 0 || n > length - pos) {
+      throw new EOFException();
+    }
+    position = pos + n;
+    return pos;
+  }
+
+  private void check(int offset, int n) throws IOException {
+    if (offset < 0 || n < 0 || n > length - offset) {
+      throw new EOFException();
+    }
+  }
+
+  public void discard(int n) throws IOException {
+    advance(n);
+  }
+
+  public byte readByte() throws IOException {
+    return buffer.get(advance(1));
+  }
+
+  public int readUnsignedByte() throws IOException {
+    return buffer.get(advance(1)) & 0xFF;
+  }
+
+  public short readShort() throws IOException {
+    return buffer.getShort(advance(2));
+  }
+
+  public int readUnsignedShort() throws IOException {
+    return buffer.getShort(advance(2)) & 0xFFFF;
+  }
+
+  public int readInt() throws IOException {
+    return buffer.getInt(advance(4));
+  }
+
+  public long readLong() throws IOException {
+    return buffer.getLong(advance(8));
+  }
+
+  public float readFloat() throws IOException {
+    return buffer.getFloat(advance(4));
+  }
+
+  public double readDouble() throws IOException {
+    return buffer.getDouble(advance(8));
+  }
+
+  public int getUnsignedByte(int offset) throws IOException {
+    check(offset, 1);
+    return buffer.get(offset) & 0xFF;
+  }
+
+  public int getUnsignedShort(int offset) throws IOException {
+    check(offset, 2);
+    return buffer.getShort(offset) & 0xFFFF;
+  }
+
+  public int getInt(int offset) throws IOException {
+    check(offset, 4);
+    return buffer.getInt(offset);
+  }
+
+  public long getLong(int offset) throws IOException {
+    check(offset, 8);
+    return buffer.getLong(offset);
+  }
+
+  public void readFully(byte[] b) throws IOException {
+    ByteBuffer source = buffer.duplicate();
+    ((Buffer)source).position(advance(b.length));
+    source.get(b);
+  }
+
+  // the next n bytes as a reader of their own, sharing the bytes of this one
+  public DataInputBuffer slice(int n) throws IOException {
+    return slice(advance(n), n);
+  }
+
+  public DataInputBuffer slice(int offset, int n) throws IOException {
+    check(offset, n);
+    ByteBuffer slice = buffer.duplicate();
+    ((Buffer)slice).limit(offset + n).position(offset);
+    return new DataInputBuffer(slice);
+  }
+
+  // modified UTF-8 with a length prefix, see DataInput.readUTF()
+  public String readUTF() throws IOException {
+    int utfLength = readUnsignedShort();
+    return decodeUTF(advance(utfLength), utfLength);
+  }
+
+  public String getUTF(int offset) throws IOException {
+    int utfLength = getUnsignedShort(offset);
+    check(offset + 2, utfLength);
+    return decodeUTF(offset + 2, utfLength);
+  }
+
+  private String decodeUTF(int start, int utfLength) throws IOException {
+    int end = start + utfLength;
+
+    char[] chars = new char[utfLength];
+    int count = 0;
+
+    int i = start;
+    while (i < end) {
+      int c = buffer.get(i) & 0xFF;
+      if (c < 0x80) {
+        chars[count++] = (char)c;
+        i++;
+      }
+      else if ((c & 0xE0) == 0xC0) {
+        if (i + 2 > end) {
+          throw new UTFDataFormatException("malformed input: partial character at end");
+        }
+        int c2 = buffer.get(i + 1);
+        if ((c2 & 0xC0) != 0x80) {
+          throw new UTFDataFormatException("malformed input around byte " + (i - start));
+        }
+        chars[count++] = (char)(((c & 0x1F) << 6) | (c2 & 0x3F));
+        i += 2;
+      }
+      else if ((c & 0xF0) == 0xE0) {
+        if (i + 3 > end) {
+          throw new UTFDataFormatException("malformed input: partial character at end");
+        }
+        int c2 = buffer.get(i + 1);
+        int c3 = buffer.get(i + 2);
+        if ((c2 & 0xC0) != 0x80 || (c3 & 0xC0) != 0x80) {
+          throw new UTFDataFormatException("malformed input around byte " + (i - start));
+        }
+        chars[count++] = (char)(((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+        i += 3;
+      }
+      else {
+        throw new UTFDataFormatException("malformed input around byte " + (i - start));
+      }
+    }
+
+    return new String(chars, 0, count);
+  }
+}
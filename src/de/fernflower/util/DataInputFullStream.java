@@ -15,41 +15,81 @@
  */
 package de.fernflower.util;
 
-import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 
+// Stream view of a class file for code working with java.io streams, e.g. in a custom IBytecodeProvider.
+// The decompiler itself reads class files with DataInputBuffer.
 public class DataInputFullStream extends DataInputStream {
+  private final int length;
 
   public DataInputFullStream(byte[] bytes) {
-    super(new ByteArrayInputStream(bytes));
+    this(ByteBuffer.wrap(bytes));
   }
 
-  public int readFull(byte[] b) throws IOException {
-    int length = b.length;
-    byte[] temp = new byte[length];
-    int pos = 0;
-
-    int bytes_read;
-    while (true) {
-      bytes_read = read(temp, 0, length - pos);
-      if (bytes_read == -1) {
-        return -1;
-      }
+  public DataInputFullStream(ByteBuffer buffer) {
+    super(new ByteBufferInputStream(buffer));
+    length = buffer.remaining();
+  }
 
-      System.arraycopy(temp, 0, b, pos, bytes_read);
-      pos += bytes_read;
-      if (pos == length) {
-        break;
-      }
-    }
+  // offset of the next byte to be read
+  public int getPosition() throws IOException {
+    return length - available();
+  }
 
-    return length;
+  public int readFull(byte[] b) throws IOException {
+    if (available() < b.length) {
+      return -1;
+    }
+    readFully(b);
+    return b.length;
   }
 
   public void discard(int n) throws IOException {
-    if (super.skip(n) != n) {
+    if (skipBytes(n) != n) {
       throw new IOException("Skip failed");
     }
   }
+
+  // unsynchronized, reads straight from the buffer, which may be a mapped file
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      len = Math.min(len, buffer.remaining());
+      buffer.get(b, off, len);
+      return len;
+    }
+
+    @Override
+    public long skip(long n) {
+      int count = (int)Math.max(0, Math.min(n, buffer.remaining()));
+      ((Buffer)buffer).position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
 }
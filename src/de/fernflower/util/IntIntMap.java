@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+// Map from int keys to int values in open addressed arrays, see IntObjectMap.
+public class IntIntMap {
+  private int[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  public IntIntMap() {
+    this(4);
+  }
+
+  public IntIntMap(int expectedSize) {
+    int capacity = IntObjectMap.tableSize(expectedSize);
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+  }
+
+  private int find(int key) {
+    int mask = keys.length - 1;
+    int i = IntObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  public int get(int key, int defaultValue) {
+    int i = find(key);
+    return i < 0 ? defaultValue : values[i];
+  }
+
+  public boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  public void put(int key, int value) {
+    int mask = keys.length - 1;
+    int i = IntObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    if (++size > keys.length * 3 / 4) {
+      resize(keys.length << 1);
+    }
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new int[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = IntObjectMap.slot(oldKeys[j], mask);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Map from int keys to objects in open addressed arrays, no key is boxed. Null values are allowed, containsKey()
+// tells them from missing keys. Iteration follows the slots and only depends on the order of the changes.
+public class IntObjectMap<V> {
+  private int[] keys;
+  private Object[] values;
+  private boolean[] used;
+  private int size;
+
+  public IntObjectMap() {
+    this(4);
+  }
+
+  public IntObjectMap(int expectedSize) {
+    int capacity = tableSize(expectedSize);
+    keys = new int[capacity];
+    values = new Object[capacity];
+    used = new boolean[capacity];
+  }
+
+  // a power of two at most three quarters full with the given number of keys
+  static int tableSize(int expectedSize) {
+    int capacity = 4;
+    while (capacity * 3 / 4 < expectedSize) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  static int slot(int key, int mask) {
+    int h = key * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  private int find(int key) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    int i = find(key);
+    return i < 0 ? null : (V)values[i];
+  }
+
+  public boolean containsKey(int key) {
+    return find(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        V old = (V)values[i];
+        values[i] = value;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    if (++size > keys.length * 3 / 4) {
+      resize(keys.length << 1);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int i = find(key);
+    if (i < 0) {
+      return null;
+    }
+
+    V old = (V)values[i];
+    removeSlot(i);
+    return old;
+  }
+
+  // closes the gap so that no key becomes unreachable from its slot
+  private void removeSlot(int gap) {
+    int mask = keys.length - 1;
+    int i = gap;
+    while (true) {
+      i = (i + 1) & mask;
+      if (!used[i]) {
+        break;
+      }
+      int home = slot(keys[i], mask);
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+
+    used[gap] = false;
+    values[gap] = null;
+    size--;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new int[capacity];
+    values = new Object[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = slot(oldKeys[j], mask);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  // a copy, the map may be changed while it is iterated
+  public int[] keys() {
+    int[] result = new int[size];
+    int n = 0;
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i]) {
+        result[n++] = keys[i];
+      }
+    }
+    return result;
+  }
+
+  @SuppressWarnings("unchecked")
+  public List<V> values() {
+    List<V> result = new ArrayList<V>(size);
+    for (int i = 0; i < keys.length; i++) {
+      if (used[i]) {
+        result.add((V)values[i]);
+      }
+    }
+    return result;
+  }
+}
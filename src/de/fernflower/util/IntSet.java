@@ -0,0 +1,92 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+// Set of ints in an open addressed array, see IntObjectMap.
+public class IntSet {
+  private int[] keys;
+  private boolean[] used;
+  private int size;
+
+  public IntSet() {
+    this(4);
+  }
+
+  public IntSet(int expectedSize) {
+    int capacity = IntObjectMap.tableSize(expectedSize);
+    keys = new int[capacity];
+    used = new boolean[capacity];
+  }
+
+  public boolean contains(int key) {
+    int mask = keys.length - 1;
+    int i = IntObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return true;
+      }
+      i = (i + 1) & mask;
+    }
+    return false;
+  }
+
+  // false if the set already contains the key
+  public boolean add(int key) {
+    int mask = keys.length - 1;
+    int i = IntObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return false;
+      }
+      i = (i + 1) & mask;
+    }
+
+    used[i] = true;
+    keys[i] = key;
+    if (++size > keys.length * 3 / 4) {
+      resize(keys.length << 1);
+    }
+    return true;
+  }
+
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    boolean[] oldUsed = used;
+
+    keys = new int[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = IntObjectMap.slot(oldKeys[j], mask);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
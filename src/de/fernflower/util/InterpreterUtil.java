@@ -19,6 +19,7 @@ import de.fernflower.main.DecompilerContext;
 import de.fernflower.main.extern.IFernflowerPreferences;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Collection;
 import java.util.HashSet;
@@ -63,6 +64,28 @@ public class InterpreterUtil {
     }
   }
 
+  // writes the text in chunks, without copying it into a String first
+  public static void writeText(Writer out, CharSequence text) throws IOException {
+    if (text instanceof String) {
+      out.write((String)text);
+      return;
+    }
+
+    char[] buffer = new char[Math.min(text.length(), BUFFER_SIZE)];
+    for (int start = 0; start < text.length(); start += buffer.length) {
+      int end = Math.min(start + buffer.length, text.length());
+      if (text instanceof StringBuilder) {
+        ((StringBuilder)text).getChars(start, end, buffer, 0);
+      }
+      else {
+        for (int i = start; i < end; i++) {
+          buffer[i - start] = text.charAt(i);
+        }
+      }
+      out.write(buffer, 0, end - start);
+    }
+  }
+
   public static byte[] getBytes(ZipFile archive, ZipEntry entry) throws IOException {
     return readAndClose(archive.getInputStream(entry), (int)entry.getSize());
   }
@@ -71,6 +94,16 @@ public class InterpreterUtil {
     return readAndClose(new FileInputStream(file), (int)file.length());
   }
 
+  public static ByteBuffer mapFile(File file) throws IOException {
+    FileChannel channel = new FileInputStream(file).getChannel();
+    try {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    finally {
+      channel.close();
+    }
+  }
+
   private static byte[] readAndClose(InputStream stream, int length) throws IOException {
     try {
       byte[] bytes = new byte[length];
@@ -153,7 +186,8 @@ public class InterpreterUtil {
   }
 
   public static String makeUniqueKey(String name, String descriptor) {
-    return name + ' ' + descriptor;
+    DecompilerContext context = DecompilerContext.getCurrentContext();
+    return context != null ? DecompilerContext.getSymbolTable().getMemberKey(name, descriptor) : name + ' ' + descriptor;
   }
 
   public static String makeUniqueKey(String name, String descriptor1, String descriptor2) {
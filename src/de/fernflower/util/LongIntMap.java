@@ -0,0 +1,132 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+// Map from long keys to int values in open addressed arrays, see LongObjectMap.
+public class LongIntMap {
+  private long[] keys;
+  private int[] values;
+  private boolean[] used;
+  private int size;
+
+  public LongIntMap() {
+    this(4);
+  }
+
+  public LongIntMap(int expectedSize) {
+    int capacity = IntObjectMap.tableSize(expectedSize);
+    keys = new long[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+  }
+
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int i = LongObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  public int get(long key, int defaultValue) {
+    int i = find(key);
+    return i < 0 ? defaultValue : values[i];
+  }
+
+  public boolean containsKey(long key) {
+    return find(key) >= 0;
+  }
+
+  public void put(long key, int value) {
+    int mask = keys.length - 1;
+    int i = LongObjectMap.slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        values[i] = value;
+        return;
+      }
+      i = (i + 1) & mask;
+    }
+
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    if (++size > keys.length * 3 / 4) {
+      resize(keys.length << 1);
+    }
+  }
+
+  public void remove(long key) {
+    int i = find(key);
+    if (i < 0) {
+      return;
+    }
+
+    // closes the gap so that no key becomes unreachable from its slot
+    int mask = keys.length - 1;
+    int gap = i;
+    while (true) {
+      i = (i + 1) & mask;
+      if (!used[i]) {
+        break;
+      }
+      int home = LongObjectMap.slot(keys[i], mask);
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+
+    used[gap] = false;
+    size--;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new long[capacity];
+    values = new int[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = LongObjectMap.slot(oldKeys[j], mask);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
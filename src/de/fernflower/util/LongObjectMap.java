@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+// Map from long keys to objects in open addressed arrays, see IntObjectMap. Meant for keys that pack two ints,
+// e.g. a variable and its version, so that no key object is kept per entry.
+public class LongObjectMap<V> {
+  private long[] keys;
+  private Object[] values;
+  private boolean[] used;
+  private int size;
+
+  public LongObjectMap() {
+    this(4);
+  }
+
+  public LongObjectMap(int expectedSize) {
+    int capacity = IntObjectMap.tableSize(expectedSize);
+    keys = new long[capacity];
+    values = new Object[capacity];
+    used = new boolean[capacity];
+  }
+
+  static int slot(long key, int mask) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    int i = (int)(h ^ (h >>> 32));
+    return (i ^ (i >>> 16)) & mask;
+  }
+
+  private int find(long key) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    int i = find(key);
+    return i < 0 ? null : (V)values[i];
+  }
+
+  public boolean containsKey(long key) {
+    return find(key) >= 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V put(long key, V value) {
+    int mask = keys.length - 1;
+    int i = slot(key, mask);
+    while (used[i]) {
+      if (keys[i] == key) {
+        V old = (V)values[i];
+        values[i] = value;
+        return old;
+      }
+      i = (i + 1) & mask;
+    }
+
+    used[i] = true;
+    keys[i] = key;
+    values[i] = value;
+    if (++size > keys.length * 3 / 4) {
+      resize(keys.length << 1);
+    }
+    return null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V remove(long key) {
+    int i = find(key);
+    if (i < 0) {
+      return null;
+    }
+
+    V old = (V)values[i];
+
+    // closes the gap so that no key becomes unreachable from its slot
+    int mask = keys.length - 1;
+    int gap = i;
+    while (true) {
+      i = (i + 1) & mask;
+      if (!used[i]) {
+        break;
+      }
+      int home = slot(keys[i], mask);
+      if (((i - home) & mask) >= ((i - gap) & mask)) {
+        keys[gap] = keys[i];
+        values[gap] = values[i];
+        gap = i;
+      }
+    }
+
+    used[gap] = false;
+    values[gap] = null;
+    size--;
+    return old;
+  }
+
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    boolean[] oldUsed = used;
+
+    keys = new long[capacity];
+    values = new Object[capacity];
+    used = new boolean[capacity];
+
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; j++) {
+      if (oldUsed[j]) {
+        int i = slot(oldKeys[j], mask);
+        while (used[i]) {
+          i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Central directory of a zip archive read without java.util.zip, so that entries can be copied to another archive
+// as they are stored, without inflating and deflating them again. Only entries that can be copied this way are listed:
+// stored or deflated, not encrypted and not in zip64 format.
+public class RawZipArchive implements Closeable {
+  public static final int STORED = 0;
+  public static final int DEFLATED = 8;
+
+  static final int LOCAL_HEADER = 0x04034b50;
+  static final int CENTRAL_HEADER = 0x02014b50;
+  static final int END_HEADER = 0x06054b50;
+  static final int LOCAL_HEADER_SIZE = 30;
+  static final int CENTRAL_HEADER_SIZE = 46;
+  static final int END_HEADER_SIZE = 22;
+
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private final Map<String, Entry> entries = new HashMap<String, Entry>();
+
+  public RawZipArchive(File file) throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      readCentralDirectory();
+    }
+    catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  private void readCentralDirectory() throws IOException {
+    long size = channel.size();
+    int tailLength = (int)Math.min(size, END_HEADER_SIZE + 0xFFFF);
+    ByteBuffer tail = read(size - tailLength, tailLength);
+
+    // the end record is followed by a comment of the given length
+    int end = -1;
+    for (int i = tailLength - END_HEADER_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == END_HEADER && i + END_HEADER_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailLength) {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0) {
+      throw new IOException("End of central directory not found");
+    }
+
+    int count = tail.getShort(end + 10) & 0xFFFF;
+    long directorySize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+    long directoryOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+    if (count == 0xFFFF || directorySize == ZIP64_MAGIC || directoryOffset == ZIP64_MAGIC) {
+      return; // zip64, entries are copied the usual way
+    }
+
+    ByteBuffer directory = read(directoryOffset, (int)directorySize);
+    int pos = 0;
+    for (int i = 0; i < count; i++) {
+      if (pos + CENTRAL_HEADER_SIZE > directory.limit() || directory.getInt(pos) != CENTRAL_HEADER) {
+        throw new IOException("Invalid central directory");
+      }
+
+      int flags = directory.getShort(pos + 8) & 0xFFFF;
+      int method = directory.getShort(pos + 10) & 0xFFFF;
+      int dosTime = directory.getInt(pos + 12);
+      int crc = directory.getInt(pos + 16);
+      long compressedSize = directory.getInt(pos + 20) & 0xFFFFFFFFL;
+      long uncompressedSize = directory.getInt(pos + 24) & 0xFFFFFFFFL;
+      int nameLength = directory.getShort(pos + 28) & 0xFFFF;
+      int extraLength = directory.getShort(pos + 30) & 0xFFFF;
+      int commentLength = directory.getShort(pos + 32) & 0xFFFF;
+      long localHeaderOffset = directory.getInt(pos + 42) & 0xFFFFFFFFL;
+
+      byte[] name = new byte[nameLength];
+      ((Buffer)directory).position(pos + CENTRAL_HEADER_SIZE);
+      directory.get(name);
+      pos += CENTRAL_HEADER_SIZE + nameLength + extraLength + commentLength;
+
+      boolean copyable = (flags & 1) == 0 && (method == STORED || method == DEFLATED) &&
+                         compressedSize != ZIP64_MAGIC && uncompressedSize != ZIP64_MAGIC && localHeaderOffset != ZIP64_MAGIC;
+      if (copyable) {
+        String entryName = new String(name, StandardCharsets.UTF_8);
+        if (!entries.containsKey(entryName)) {
+          entries.put(entryName, new Entry(flags, method, dosTime, crc, compressedSize, uncompressedSize, localHeaderOffset));
+        }
+      }
+    }
+  }
+
+  private ByteBuffer read(long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, offset + buffer.position()) < 0) {
+        throw new EOFException();
+      }
+    }
+    ((Buffer)buffer).flip();
+    return buffer;
+  }
+
+  public Entry getEntry(String name) {
+    return entries.get(name);
+  }
+
+  // offset of the entry data, or -1 if the central directory doesn't point to a valid local header of the entry,
+  // e.g. in an archive with data prepended to it
+  public long getDataOffset(Entry entry) throws IOException {
+    long size = channel.size();
+    if (entry.localHeaderOffset + LOCAL_HEADER_SIZE > size) {
+      return -1;
+    }
+
+    ByteBuffer header = read(entry.localHeaderOffset, LOCAL_HEADER_SIZE);
+    if (header.getInt(0) != LOCAL_HEADER) {
+      return -1;
+    }
+
+    long offset = entry.localHeaderOffset + LOCAL_HEADER_SIZE + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    return offset + entry.compressedSize <= size ? offset : -1;
+  }
+
+  // writes the entry data as stored in the archive, starting at the offset given by getDataOffset().
+  // Reads at absolute positions, so entries may be copied concurrently.
+  public void copyData(Entry entry, long offset, OutputStream out) throws IOException {
+    long remaining = entry.compressedSize;
+
+    ByteBuffer buffer = ByteBuffer.allocate((int)Math.min(remaining, COPY_BUFFER_SIZE));
+    while (remaining > 0) {
+      ((Buffer)buffer).clear();
+      if (remaining < buffer.capacity()) {
+        ((Buffer)buffer).limit((int)remaining);
+      }
+      int count = channel.read(buffer, offset);
+      if (count < 0) {
+        throw new EOFException();
+      }
+      out.write(buffer.array(), 0, count);
+      offset += count;
+      remaining -= count;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  public static class Entry {
+    public final int flags;
+    public final int method;
+    public final int dosTime;
+    public final int crc;
+    public final long compressedSize;
+    public final long size;
+    private final long localHeaderOffset;
+
+    private Entry(int flags, int method, int dosTime, int crc, long compressedSize, long size, long localHeaderOffset) {
+      this.flags = flags;
+      this.method = method;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Names and descriptors of a decompiler context, each kept once however many pools it is read from. Member keys,
+// see InterpreterUtil.makeUniqueKey(), are found by their parts, so looking up a known member builds no string.
+public class SymbolTable {
+  private final ConcurrentHashMap<String, String> symbols = new ConcurrentHashMap<String, String>();
+  private final ConcurrentHashMap<MemberKey, String> memberKeys = new ConcurrentHashMap<MemberKey, String>();
+
+  public String intern(String symbol) {
+    String interned = symbols.get(symbol);
+    if (interned == null) {
+      interned = symbols.putIfAbsent(symbol, symbol);
+      if (interned == null) {
+        interned = symbol;
+      }
+    }
+    return interned;
+  }
+
+  // the one key of a member: its name and descriptor separated by a space
+  public String getMemberKey(String name, String descriptor) {
+    String key = memberKeys.get(new MemberKey(name, descriptor));
+    if (key == null) {
+      key = intern(name + ' ' + descriptor);
+      String existing = memberKeys.putIfAbsent(new MemberKey(intern(name), intern(descriptor)), key);
+      if (existing != null) {
+        key = existing;
+      }
+    }
+    return key;
+  }
+
+  private static class MemberKey {
+    private final String name;
+    private final String descriptor;
+    private final int hash;
+
+    private MemberKey(String name, String descriptor) {
+      this.name = name;
+      this.descriptor = descriptor;
+      this.hash = name.hashCode() * 31 + descriptor.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof MemberKey)) return false;
+
+      MemberKey key = (MemberKey)o;
+      return hash == key.hash && name.equals(key.name) && descriptor.equals(key.descriptor);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+// Writes zip and jar archives like ZipOutputStream/JarOutputStream, and can also take entries of another archive
+// as they are stored, without inflating and deflating them again. Entries are written whole, so their sizes and
+// checksums are known in the local header. New entries may be compressed on a pool of threads, they are still
+// written in the order they were added. Not thread-safe.
+public class ZipArchiveWriter implements Closeable {
+  private static final int END64_HEADER = 0x06064b50;
+  private static final int END64_LOCATOR = 0x07064b50;
+  private static final int ZIP64_EXTRA = 0x0001;
+  private static final int JAR_MAGIC = 0xCAFE;
+  private static final int UTF8_FLAG = 0x800;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+
+  private final CountingOutputStream out;
+  private final List<CentralEntry> entries = new ArrayList<CentralEntry>();
+  private int dosTime = toDosTime(LocalDateTime.now());
+  private final ByteBuffer header = ByteBuffer.allocate(128).order(ByteOrder.LITTLE_ENDIAN);
+  private boolean jarMarker;
+
+  private final int level;
+  private final boolean stored;
+  private final ExecutorService compressor;  // null if entries are compressed by the calling thread
+  private final Deque<Future<PreparedEntry>> pending = new ArrayDeque<Future<PreparedEntry>>();
+  private final int maxPending;
+
+  public ZipArchiveWriter(OutputStream out, Manifest manifest) throws IOException {
+    this(out, manifest, Deflater.DEFAULT_COMPRESSION, false, 1);
+  }
+
+  // a jar archive starts with its manifest, marked like in archives written by JarOutputStream
+  public ZipArchiveWriter(OutputStream out, Manifest manifest, int level, boolean stored, int threads) throws IOException {
+    this.out = new CountingOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    this.level = level;
+    this.stored = stored;
+    this.compressor = threads > 1 && !stored ? Executors.newFixedThreadPool(threads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, "Archive compressor");
+        thread.setDaemon(true);
+        return thread;
+      }
+    }) : null;
+    // limits the memory held by entries waiting to be written
+    this.maxPending = threads * 4;
+
+    if (manifest != null) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      manifest.write(bytes);
+      jarMarker = true;
+      writeEntry(JarFile.MANIFEST_NAME, bytes.toByteArray());
+    }
+  }
+
+  // time of the entries written afterwards, e.g. a fixed one so that the same entries give the same archive
+  public void setTime(LocalDateTime time) throws IOException {
+    flushPending();
+    dosTime = toDosTime(time);
+  }
+
+  // directory entries (name ending with '/') and entries without data are stored, all others deflated
+  // unless the archive is written uncompressed
+  public void writeEntry(String name, byte[] data) throws IOException {
+    writeEntry(name, data, data == null ? 0 : data.length);
+  }
+
+  // the text is encoded as UTF-8 straight into the entry data
+  public void writeTextEntry(String name, CharSequence text) throws IOException {
+    if (text == null) {
+      writeEntry(name, null);
+      return;
+    }
+    ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+    writeEntry(name, bytes.array(), bytes.limit());
+  }
+
+  // the first length bytes of data are the entry, the array must not be changed afterwards
+  public void writeEntry(final String name, final byte[] data, final int length) throws IOException {
+    if (compressor == null) {
+      writePrepared(prepare(name, data, length, level, stored));
+      return;
+    }
+
+    pending.add(compressor.submit(new Callable<PreparedEntry>() {
+      @Override
+      public PreparedEntry call() {
+        return prepare(name, data, length, level, stored);
+      }
+    }));
+
+    if (pending.size() > maxPending) {
+      writePrepared(take(pending.poll()));
+    }
+  }
+
+  private void flushPending() throws IOException {
+    while (!pending.isEmpty()) {
+      writePrepared(take(pending.poll()));
+    }
+  }
+
+  private static PreparedEntry take(Future<PreparedEntry> future) throws IOException {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException();
+    }
+    catch (ExecutionException ex) {
+      throw new IOException(ex.getCause());
+    }
+  }
+
+  private static PreparedEntry prepare(String name, byte[] data, int length, int level, boolean stored) {
+    if (data == null) {
+      data = new byte[0];
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(data, 0, length);
+
+    if (stored || length == 0 || name.endsWith("/")) {
+      return new PreparedEntry(name, RawZipArchive.STORED, (int)crc.getValue(), data, length, length);
+    }
+
+    Deflater deflater = new Deflater(level, true);
+    try {
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        int count = deflater.deflate(buffer);
+        compressed.write(buffer, 0, count);
+      }
+      byte[] bytes = compressed.toByteArray();
+      return new PreparedEntry(name, RawZipArchive.DEFLATED, (int)crc.getValue(), bytes, bytes.length, length);
+    }
+    finally {
+      deflater.end();
+    }
+  }
+
+  private void writePrepared(PreparedEntry entry) throws IOException {
+    writeLocalHeader(entry.name, 0, entry.method, dosTime, entry.crc, entry.length, entry.size);
+    out.write(entry.data, 0, entry.length);
+  }
+
+  // copies the entry from the source archive, byte for byte if it is stored there in a way that can be copied.
+  // Returns false if the entry is not found.
+  public boolean copyEntry(ArchiveHandlePool.Handle source, String name) throws IOException {
+    flushPending();
+
+    RawZipArchive rawArchive = source.getRawArchive();
+    RawZipArchive.Entry rawEntry = rawArchive == null ? null : rawArchive.getEntry(name);
+    // the source is checked before anything is written, an entry it can't be copied from is read the usual way
+    long dataOffset = rawEntry == null ? -1 : rawArchive.getDataOffset(rawEntry);
+    if (dataOffset >= 0) {
+      // the data descriptor flag is dropped, the sizes are written to the local header
+      writeLocalHeader(name, rawEntry.flags & 0x06, rawEntry.method, rawEntry.dosTime, rawEntry.crc, rawEntry.compressedSize, rawEntry.size);
+      rawArchive.copyData(rawEntry, dataOffset, out);
+      return true;
+    }
+
+    ZipFile archive = source.getArchive();
+    ZipEntry entry = archive.getEntry(name);
+    if (entry == null) {
+      return false;
+    }
+    writeEntry(name, InterpreterUtil.getBytes(archive, entry));
+    return true;
+  }
+
+  private void writeLocalHeader(String name, int flags, int method, int time, int crc, long compressedSize, long size) throws IOException {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    byte[] extra = new byte[0];
+    if (jarMarker) {
+      extra = new byte[]{(byte)JAR_MAGIC, (byte)(JAR_MAGIC >> 8), 0, 0};
+      jarMarker = false;
+    }
+
+    CentralEntry entry = new CentralEntry(nameBytes, extra, flags | UTF8_FLAG, method, time, crc, compressedSize, size, out.count);
+    entries.add(entry);
+
+    ((Buffer)header).clear();
+    header.putInt(RawZipArchive.LOCAL_HEADER);
+    header.putShort((short)entry.versionNeeded());
+    header.putShort((short)entry.flags);
+    header.putShort((short)method);
+    header.putInt(time);
+    header.putInt(crc);
+    header.putInt((int)compressedSize);
+    header.putInt((int)size);
+    header.putShort((short)nameBytes.length);
+    header.putShort((short)extra.length);
+    out.write(header.array(), 0, header.position());
+    out.write(nameBytes);
+    out.write(extra);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flushPending();
+
+      long directoryOffset = out.count;
+      for (CentralEntry entry : entries) {
+        writeCentralHeader(entry);
+      }
+      long directorySize = out.count - directoryOffset;
+
+      boolean zip64 = entries.size() >= 0xFFFF || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC;
+      if (zip64) {
+        long end64Offset = out.count;
+
+        ((Buffer)header).clear();
+        header.putInt(END64_HEADER);
+        header.putLong(44);
+        header.putShort((short)45);
+        header.putShort((short)45);
+        header.putInt(0);
+        header.putInt(0);
+        header.putLong(entries.size());
+        header.putLong(entries.size());
+        header.putLong(directorySize);
+        header.putLong(directoryOffset);
+        header.putInt(END64_LOCATOR);
+        header.putInt(0);
+        header.putLong(end64Offset);
+        header.putInt(1);
+        out.write(header.array(), 0, header.position());
+      }
+
+      ((Buffer)header).clear();
+      header.putInt(RawZipArchive.END_HEADER);
+      header.putShort((short)0);
+      header.putShort((short)0);
+      header.putShort((short)Math.min(entries.size(), 0xFFFF));
+      header.putShort((short)Math.min(entries.size(), 0xFFFF));
+      header.putInt((int)Math.min(directorySize, ZIP64_MAGIC));
+      header.putInt((int)Math.min(directoryOffset, ZIP64_MAGIC));
+      header.putShort((short)0);
+      out.write(header.array(), 0, header.position());
+    }
+    finally {
+      if (compressor != null) {
+        compressor.shutdownNow();
+      }
+      out.close();
+    }
+  }
+
+  private void writeCentralHeader(CentralEntry entry) throws IOException {
+    boolean zip64Offset = entry.localHeaderOffset >= ZIP64_MAGIC;
+    byte[] extra = entry.extra;
+    if (zip64Offset) {
+      ByteBuffer zip64 = ByteBuffer.allocate(extra.length + 12).order(ByteOrder.LITTLE_ENDIAN);
+      zip64.put(extra);
+      zip64.putShort((short)ZIP64_EXTRA);
+      zip64.putShort((short)8);
+      zip64.putLong(entry.localHeaderOffset);
+      extra = zip64.array();
+    }
+
+    ((Buffer)header).clear();
+    header.putInt(RawZipArchive.CENTRAL_HEADER);
+    header.putShort((short)(zip64Offset ? 45 : 20));
+    header.putShort((short)(zip64Offset ? 45 : entry.versionNeeded()));
+    header.putShort((short)entry.flags);
+    header.putShort((short)entry.method);
+    header.putInt(entry.dosTime);
+    header.putInt(entry.crc);
+    header.putInt((int)entry.compressedSize);
+    header.putInt((int)entry.size);
+    header.putShort((short)entry.name.length);
+    header.putShort((short)extra.length);
+    header.putShort((short)0);
+    header.putShort((short)0);
+    header.putShort((short)0);
+    header.putInt(0);
+    header.putInt((int)Math.min(entry.localHeaderOffset, ZIP64_MAGIC));
+    out.write(header.array(), 0, header.position());
+    out.write(entry.name);
+    out.write(extra);
+  }
+
+  private static int toDosTime(LocalDateTime time) {
+    if (time.getYear() < 1980) {
+      return (1 << 21) | (1 << 16);
+    }
+    return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16 |
+           time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+  }
+
+  private static class PreparedEntry {
+    private final String name;
+    private final int method;
+    private final int crc;
+    private final byte[] data;
+    private final int length;
+    private final long size;
+
+    private PreparedEntry(String name, int method, int crc, byte[] data, int length, long size) {
+      this.name = name;
+      this.method = method;
+      this.crc = crc;
+      this.data = data;
+      this.length = length;
+      this.size = size;
+    }
+  }
+
+  private static class CentralEntry {
+    private final byte[] name;
+    private final byte[] extra;
+    private final int flags;
+    private final int method;
+    private final int dosTime;
+    private final int crc;
+    private final long compressedSize;
+    private final long size;
+    private final long localHeaderOffset;
+
+    private CentralEntry(byte[] name, byte[] extra, int flags, int method, int dosTime, int crc, long compressedSize, long size, long localHeaderOffset) {
+      this.name = name;
+      this.extra = extra;
+      this.flags = flags;
+      this.method = method;
+      this.dosTime = dosTime;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+
+    private int versionNeeded() {
+      return method == RawZipArchive.DEFLATED ? 20 : 10;
+    }
+  }
+
+  private static class CountingOutputStream extends FilterOutputStream {
+    private long count = 0;
+
+    private CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -20,14 +20,20 @@ import org.junit.Before;
 import org.junit.Test;
 
 import de.fernflower.main.decompiler.ConsoleDecompiler;
+import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.util.InterpreterUtil;
 
 import java.io.*;
 import java.util.Enumeration;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import static de.fernflower.DecompilerTestFixture.assertFilesEqual;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class BulkDecompilationTest {
@@ -69,6 +75,85 @@ public class BulkDecompilationTest {
     assertFilesEqual(new File(fixture.getTestDataDir(), "bulk"), unpacked);
   }
 
+  @Test
+  public void testJarMultithreaded() {
+    File archive = new File(fixture.getTestDataDir(), "bulk.jar");
+
+    Map<String, String> serial = decompileArchive(archive);
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+
+    // a difference between the runs of the determinism check is logged as an error
+    Map<String, String> parallel = decompileArchive(archive, IFernflowerPreferences.THREADS, "4",
+                                                    IFernflowerPreferences.PARALLEL_METHODS, "1",
+                                                    IFernflowerPreferences.CHECK_DETERMINISM, "1");
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+    assertEquals(serial, parallel);
+  }
+
+  @Test
+  public void testJarWithBrokenClass() throws IOException {
+    File archive = new File(fixture.getTempDir(), "broken.jar");
+    ZipFile zip = new ZipFile(new File(fixture.getTestDataDir(), "bulk.jar"));
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+    try {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.getName().equals("pkg/res/")) {
+          out.putNextEntry(new ZipEntry("pkg/Broken.class"));
+          out.write(new byte[]{(byte)0xCA, (byte)0xFE, (byte)0xBA, (byte)0xBE, 0, 0, 0, 52, 0, 2, 21});
+        }
+        out.putNextEntry(new ZipEntry(entry.getName()));
+        out.write(InterpreterUtil.getBytes(zip, entry));
+      }
+    }
+    finally {
+      out.close();
+      zip.close();
+    }
+
+    // as on a single thread, the archive stops at the broken class with the entries before it added
+    Map<String, String> serial = decompileArchive(archive, IFernflowerPreferences.THREADS, "1");
+    assertFalse(fixture.getErrors().isEmpty());
+    Map<String, String> parallel = decompileArchive(archive, IFernflowerPreferences.THREADS, "4");
+    assertFalse(fixture.getErrors().isEmpty());
+    assertEquals(serial, parallel);
+  }
+
+  private Map<String, String> decompileArchive(File archive, String... optionPairs) {
+    ConsoleDecompiler decompiler = fixture.newDecompiler(optionPairs);
+    decompiler.addSpace(archive, true);
+    decompiler.decompileContext();
+
+    Map<String, String> files = new TreeMap<String, String>();
+    collectFiles(fixture.getTargetDir(), "", files);
+    assertFalse(files.isEmpty());
+    return files;
+  }
+
+  // relative path -> content of every file and directory below the directory, which is emptied
+  private static void collectFiles(File dir, String path, Map<String, String> files) {
+    File[] children = dir.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        String childPath = path + "/" + child.getName();
+        if (child.isDirectory()) {
+          files.put(childPath + "/", "");
+          collectFiles(child, childPath, files);
+        }
+        else {
+          try {
+            files.put(childPath, new String(InterpreterUtil.getBytes(child), "UTF-8"));
+          }
+          catch (IOException e) {
+            throw new RuntimeException(e);
+          }
+        }
+        assertTrue(child.delete());
+      }
+    }
+  }
+
   private static void unpack(File archive, File targetDir) {
     try {
       ZipFile zip = new ZipFile(archive);
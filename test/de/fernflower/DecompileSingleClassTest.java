@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.main.decompiler.ConsoleDecompiler;
+import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.util.InterpreterUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DecompileSingleClassTest {
+  private DecompilerTestFixture fixture;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1",
+                  IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1");
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testRepeatedCall() throws IOException {
+    ConsoleDecompiler decompiler = addClasses("pkg/TestClassLambda", "pkg/TestClassVar");
+
+    assertEquals(getReference("TestClassLambda"), decompiler.decompile("pkg/TestClassLambda"));
+    assertEquals(getReference("TestClassVar"), decompiler.decompile("pkg/TestClassVar"));
+    assertEquals(getReference("TestClassLambda"), decompiler.decompile("pkg/TestClassLambda"));
+    assertNull(decompiler.decompile("pkg/TestClassLambda$1"));
+    assertNull(decompiler.decompile("pkg/NoSuchClass"));
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+  }
+
+  @Test
+  public void testCallAfterDecompileContext() throws IOException {
+    ConsoleDecompiler decompiler = addClasses("pkg/TestClassLambda", "pkg/TestMethodReferenceSameName");
+
+    decompiler.decompileContext();
+    assertEquals(getReference("TestClassLambda"), decompiler.decompile("pkg/TestClassLambda"));
+    assertEquals(getReference("TestMethodReferenceSameName"), decompiler.decompile("TestMethodReferenceSameName"));
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+  }
+
+  @Test
+  public void testConcurrentCalls() throws Exception {
+    final ConsoleDecompiler decompiler = addClasses("pkg/TestClassLambda", "pkg/TestClassVar");
+    final String[] classes = {"pkg/TestClassLambda", "pkg/TestClassVar"};
+
+    int threads = 8;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<String>> results = new ArrayList<Future<String>>();
+      for (int i = 0; i < threads; i++) {
+        final String qualifiedName = classes[i % classes.length];
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() throws Exception {
+            start.await();
+            return decompiler.decompile(qualifiedName);
+          }
+        }));
+      }
+      start.countDown();
+
+      for (int i = 0; i < threads; i++) {
+        String qualifiedName = classes[i % classes.length];
+        assertEquals(getReference(qualifiedName.substring(qualifiedName.indexOf('/') + 1)), results.get(i).get());
+      }
+    }
+    finally {
+      executor.shutdown();
+    }
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+  }
+
+  private ConsoleDecompiler addClasses(String... testFiles) {
+    ConsoleDecompiler decompiler = fixture.getDecompiler();
+    for (String testFile : testFiles) {
+      final String name = testFile.substring(testFile.lastIndexOf('/') + 1);
+      File dir = new File(fixture.getTestDataDir(), "classes/" + testFile).getParentFile();
+      File[] files = dir.listFiles();
+      assertTrue(files != null);
+      for (File file : files) {
+        if (file.getName().equals(name + ".class") || file.getName().startsWith(name + "$")) {
+          decompiler.addSpace(file, true);
+        }
+      }
+    }
+    return decompiler;
+  }
+
+  private String getReference(String testName) throws IOException {
+    File referenceFile = new File(fixture.getTestDataDir(), "results/" + testName + ".dec");
+    return new String(InterpreterUtil.getBytes(referenceFile), "UTF-8").replace("\r\n", "\n");
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.main.DecompilerContext;
+import de.fernflower.main.Fernflower;
+import de.fernflower.main.decompiler.ConsoleDecompiler;
+import de.fernflower.main.decompiler.DecompilerServer;
+import de.fernflower.main.decompiler.PrintStreamLogger;
+import de.fernflower.main.extern.IBytecodeProvider;
+import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.struct.StructClass;
+import de.fernflower.util.InterpreterUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DecompilerServerTest {
+  private DecompilerTestFixture fixture;
+  private File library;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+
+    // the classes TestShadowing refers to, as a library
+    library = new File(fixture.getTempDir(), "shadow.jar");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(library));
+    try {
+      for (String name : new String[]{"pkg/Shadow.class", "ext/Shadow.class", "ext/Shadow$B.class"}) {
+        out.putNextEntry(new ZipEntry(name));
+        out.write(InterpreterUtil.getBytes(new File(fixture.getTestDataDir(), "classes/" + name)));
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    DecompilerContext.setCurrentContext(null);
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testRequests() throws IOException {
+    DecompilerServer server = new DecompilerServer(getOptions(), Collections.singletonList(library));
+    File source = new File(fixture.getTestDataDir(), "classes/pkg/TestShadowing.class");
+
+    // the answer is what a decompiler of its own writes with the same library
+    ConsoleDecompiler decompiler = fixture.newDecompiler(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1",
+                                                         IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1");
+    decompiler.addSpace(source, true);
+    decompiler.addSpace(library, false);
+    decompiler.decompileContext();
+    String reference = getContent(new File(fixture.getTargetDir(), "TestShadowing.java"));
+
+    // the second request finds the library classes the first one has loaded
+    List<String> answer = serve(server, source.getPath() + "\n" + source.getPath() + "\n");
+    assertEquals(6, answer.size());
+    for (int i = 0; i < 6; i += 3) {
+      assertEquals("class\tTestShadowing.java", answer.get(i));
+      assertEquals(reference, answer.get(i + 1));
+      assertEquals("done\t1", answer.get(i + 2));
+    }
+  }
+
+  @Test
+  public void testError() throws IOException {
+    DecompilerServer server = new DecompilerServer(getOptions(), Collections.singletonList(library));
+    String source = new File(fixture.getTestDataDir(), "classes/pkg/TestClassVar.class").getPath();
+
+    // a request without sources is answered, the next one is still served
+    List<String> answer = serve(server, "-dgs=1\n" + source + "\n");
+    assertEquals(4, answer.size());
+    assertEquals("error\tno sources given", answer.get(0));
+    assertEquals("class\tTestClassVar.java", answer.get(1));
+    assertEquals(getContent(new File(fixture.getTestDataDir(), "results/TestClassVar.dec")), answer.get(2));
+    assertEquals("done\t1", answer.get(3));
+  }
+
+  @Test
+  public void testSharedLibraryContext() throws IOException {
+    IBytecodeProvider provider = new IBytecodeProvider() {
+      @Override
+      public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+        ZipFile file = new ZipFile(externalPath);
+        try {
+          return InterpreterUtil.getBytes(file, file.getEntry(internalPath));
+        }
+        finally {
+          file.close();
+        }
+      }
+    };
+
+    Fernflower libraries = new Fernflower(provider, null, getOptions(), new PrintStreamLogger(System.out), null);
+    DecompilerContext libraryContext = DecompilerContext.getCurrentContext();
+    libraries.getStructContext().addSpace(library, false);
+
+    Fernflower request = new Fernflower(provider, null, getOptions(), new PrintStreamLogger(System.out), null);
+    DecompilerContext requestContext = DecompilerContext.getCurrentContext();
+    request.getStructContext().setLibraryContext(libraries.getStructContext());
+
+    // looked up by the request, the class is still parsed with the symbols of the libraries
+    StructClass cl = request.getStructContext().getClass("ext/Shadow");
+    assertNotNull(cl);
+    assertSame(requestContext, DecompilerContext.getCurrentContext());
+    assertNotSame(cl.qualifiedName, DecompilerContext.getSymbolTable().intern(new String(cl.qualifiedName)));
+
+    DecompilerContext.setCurrentContext(libraryContext);
+    assertSame(cl.qualifiedName, DecompilerContext.getSymbolTable().intern(new String(cl.qualifiedName)));
+  }
+
+  private Map<String, Object> getOptions() {
+    Map<String, Object> options = new HashMap<String, Object>();
+    options.put(IFernflowerPreferences.LOG_LEVEL, "warn");
+    options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
+    options.put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1");
+    options.put(IFernflowerPreferences.REMOVE_BRIDGE, "1");
+    options.put(IFernflowerPreferences.LITERALS_AS_IS, "1");
+    options.put(IFernflowerPreferences.UNIT_TEST_MODE, "1");
+    options.put(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1");
+    options.put(IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1");
+    return options;
+  }
+
+  // the lines of the answer, the text of a class as one item after its header without the length
+  private static List<String> serve(DecompilerServer server, String requests) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    server.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), output);
+    byte[] bytes = output.toByteArray();
+
+    List<String> answer = new ArrayList<String>();
+    int position = 0;
+    while (position < bytes.length) {
+      int end = position;
+      while (bytes[end] != '\n') {
+        end++;
+      }
+      String line = new String(bytes, position, end - position, StandardCharsets.UTF_8);
+      position = end + 1;
+
+      if (line.startsWith("class\t")) {
+        int length = Integer.parseInt(line.substring(line.lastIndexOf('\t') + 1));
+        answer.add(line.substring(0, line.lastIndexOf('\t')));
+        answer.add(new String(bytes, position, length, StandardCharsets.UTF_8));
+        position += length;
+        assertEquals('\n', bytes[position++]);
+      }
+      else {
+        answer.add(line);
+      }
+    }
+    return answer;
+  }
+
+  private static String getContent(File file) throws IOException {
+    return new String(InterpreterUtil.getBytes(file), "UTF-8").replace("\r\n", "\n");
+  }
+}
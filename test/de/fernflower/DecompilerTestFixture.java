@@ -18,12 +18,16 @@ package de.fernflower;
 import org.hamcrest.Matchers;
 
 import de.fernflower.main.decompiler.ConsoleDecompiler;
+import de.fernflower.main.decompiler.PrintStreamLogger;
 import de.fernflower.main.extern.IFernflowerPreferences;
 import de.fernflower.util.InterpreterUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
@@ -35,6 +39,7 @@ public class DecompilerTestFixture {
   private File tempDir;
   private File targetDir;
   private ConsoleDecompiler decompiler;
+  private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
 
   public void setUp(String... optionPairs) throws IOException {
     assertEquals(0, optionPairs.length % 2);
@@ -54,6 +59,13 @@ public class DecompilerTestFixture {
     targetDir = new File(tempDir, "decompiled");
     assertTrue(targetDir.mkdirs());
 
+    decompiler = newDecompiler(optionPairs);
+  }
+
+  // a decompiler with the given options on top of the test defaults, writing into the target directory
+  public ConsoleDecompiler newDecompiler(String... optionPairs) {
+    assertEquals(0, optionPairs.length % 2);
+
     Map<String, Object> options = new HashMap<String, Object>();
     options.put(IFernflowerPreferences.LOG_LEVEL, "warn");
     options.put(IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "1");
@@ -64,7 +76,16 @@ public class DecompilerTestFixture {
     for (int i = 0; i < optionPairs.length; i += 2) {
       options.put(optionPairs[i], optionPairs[i + 1]);
     }
-    decompiler = new ConsoleDecompiler(targetDir, options);
+    errors.clear();
+    return new ConsoleDecompiler(targetDir, options, new PrintStreamLogger(System.out) {
+      @Override
+      public void writeMessage(String message, Severity severity) {
+        if (severity == Severity.ERROR) {
+          errors.add(message);
+        }
+        super.writeMessage(message, severity);
+      }
+    }) { };
   }
 
   public void tearDown() {
@@ -89,6 +110,11 @@ public class DecompilerTestFixture {
     return decompiler;
   }
 
+  // messages logged as errors since the last setUp()
+  public List<String> getErrors() {
+    return errors;
+  }
+
   private static boolean isTestDataDir(File dir) {
     return dir.isDirectory() && new File(dir, "classes").isDirectory() && new File(dir, "results").isDirectory();
   }
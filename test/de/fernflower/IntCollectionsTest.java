@@ -0,0 +1,233 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.Test;
+
+import de.fernflower.util.IntIntMap;
+import de.fernflower.util.IntObjectMap;
+import de.fernflower.util.IntSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntCollectionsTest {
+  @Test
+  public void testObjectMapPutGetRemove() {
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    assertTrue(map.isEmpty());
+    assertNull(map.put(1, "a"));
+    assertNull(map.put(-1, "b"));
+    assertNull(map.put(0, null));
+    assertEquals("a", map.put(1, "c"));
+    assertEquals(3, map.size());
+
+    assertEquals("c", map.get(1));
+    assertEquals("b", map.get(-1));
+    // a null value is there, a missing key isn't
+    assertNull(map.get(0));
+    assertTrue(map.containsKey(0));
+    assertFalse(map.containsKey(2));
+
+    assertEquals("b", map.remove(-1));
+    assertNull(map.remove(-1));
+    assertFalse(map.containsKey(-1));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  public void testObjectMapResize() {
+    IntObjectMap<Integer> map = new IntObjectMap<Integer>();
+    for (int i = 0; i < 10000; i++) {
+      map.put(i * 7, i);
+    }
+    assertEquals(10000, map.size());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals(Integer.valueOf(i), map.get(i * 7));
+      assertFalse(map.containsKey(i * 7 + 1));
+    }
+  }
+
+  @Test
+  public void testObjectMapCollidingRemovals() {
+    // keys of the same home slot, the last one of the table, so the chain wraps around to the start
+    int[] keys = getCollidingKeys(15, 16, 6);
+    IntObjectMap<Integer> map = new IntObjectMap<Integer>(12);
+    for (int key : keys) {
+      map.put(key, key);
+    }
+
+    // removed from the start, the middle and the end of the chain, the keys behind have to move up
+    for (int index : new int[]{0, 3, 5, 2, 1, 4}) {
+      assertEquals(Integer.valueOf(keys[index]), map.remove(keys[index]));
+      keys[index] = Integer.MIN_VALUE;
+      for (int key : keys) {
+        if (key != Integer.MIN_VALUE) {
+          assertEquals(Integer.valueOf(key), map.get(key));
+        }
+      }
+    }
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  public void testObjectMapLikeHashMap() {
+    Random random = new Random(42);
+    IntObjectMap<Integer> map = new IntObjectMap<Integer>();
+    Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+
+    // few distinct keys, so that removals often hit long probe chains
+    for (int i = 0; i < 100000; i++) {
+      int key = random.nextInt(300) - 150;
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+      else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+
+    for (int key = -150; key < 150; key++) {
+      assertEquals(expected.get(key), map.get(key));
+      assertEquals(expected.containsKey(key), map.containsKey(key));
+    }
+  }
+
+  @Test
+  public void testObjectMapKeysAndValuesWhileRemoving() {
+    IntObjectMap<String> map = new IntObjectMap<String>();
+    for (int i = 0; i < 100; i++) {
+      map.put(i, "v" + i);
+    }
+
+    int[] keys = map.keys();
+    List<String> values = map.values();
+    assertEquals(100, keys.length);
+    assertEquals(100, values.size());
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals("v" + keys[i], values.get(i));
+    }
+
+    // the arrays are copies, removing every key they hold leaves them as they are
+    Set<Integer> removed = new HashSet<Integer>();
+    for (int key : keys) {
+      assertEquals("v" + key, map.remove(key));
+      removed.add(key);
+      assertEquals(100 - removed.size(), map.size());
+    }
+    assertEquals(100, removed.size());
+    assertTrue(map.isEmpty());
+    assertEquals(0, map.keys().length);
+    assertTrue(map.values().isEmpty());
+  }
+
+  @Test
+  public void testObjectMapIterationOrder() {
+    // the same changes give the same order
+    IntObjectMap<Integer> first = new IntObjectMap<Integer>();
+    IntObjectMap<Integer> second = new IntObjectMap<Integer>();
+    for (IntObjectMap<Integer> map : Arrays.asList(first, second)) {
+      for (int i = 0; i < 50; i++) {
+        map.put(i * 31, i);
+      }
+      for (int i = 0; i < 50; i += 3) {
+        map.remove(i * 31);
+      }
+    }
+    assertTrue(Arrays.equals(first.keys(), second.keys()));
+    assertEquals(first.values(), second.values());
+  }
+
+  @Test
+  public void testIntMap() {
+    IntIntMap map = new IntIntMap();
+    assertTrue(map.isEmpty());
+    assertEquals(-1, map.get(5, -1));
+
+    for (int i = 0; i < 1000; i++) {
+      map.put(i - 500, i);
+    }
+    map.put(0, 42);
+    assertEquals(1000, map.size());
+    assertEquals(42, map.get(0, -1));
+    assertEquals(0, map.get(-500, -1));
+    assertEquals(999, map.get(499, -1));
+    assertEquals(-1, map.get(500, -1));
+    assertTrue(map.containsKey(-1));
+    assertFalse(map.containsKey(1000));
+
+    // colliding keys in a table that is resized on the way
+    IntIntMap colliding = new IntIntMap();
+    int[] keys = getCollidingKeys(15, 16, 10);
+    for (int key : keys) {
+      colliding.put(key, key * 2);
+    }
+    for (int key : keys) {
+      assertEquals(key * 2, colliding.get(key, -1));
+    }
+  }
+
+  @Test
+  public void testIntSet() {
+    IntSet set = new IntSet();
+    assertTrue(set.isEmpty());
+    assertTrue(set.add(3));
+    assertFalse(set.add(3));
+    assertTrue(set.add(Integer.MIN_VALUE));
+    assertTrue(set.add(0));
+    assertEquals(3, set.size());
+    assertTrue(set.contains(Integer.MIN_VALUE));
+    assertFalse(set.contains(4));
+
+    for (int i = 0; i < 1000; i++) {
+      set.add(i * 1024);
+    }
+    assertEquals(1002, set.size());
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(set.contains(i * 1024));
+      assertFalse(set.contains(i * 1024 + 1));
+    }
+  }
+
+  // keys with the given home slot in a table of the given capacity, see IntObjectMap.slot()
+  private static int[] getCollidingKeys(int slot, int capacity, int count) {
+    List<Integer> keys = new ArrayList<Integer>();
+    for (int key = 0; keys.size() < count; key++) {
+      int h = key * 0x9E3779B9;
+      if (((h ^ (h >>> 16)) & (capacity - 1)) == slot) {
+        keys.add(key);
+      }
+    }
+
+    int[] result = new int[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = keys.get(i);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.main.Fernflower;
+import de.fernflower.main.decompiler.PrintStreamLogger;
+import de.fernflower.main.extern.IBytecodeProvider;
+import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.struct.StructClass;
+import de.fernflower.struct.StructContext;
+import de.fernflower.util.InterpreterUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class LibraryClassesTest {
+  private DecompilerTestFixture fixture;
+  private Fernflower fernflower;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    if (fernflower != null) {
+      fernflower.clearContext();
+      fernflower = null;
+    }
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testLastLibraryWins() throws IOException {
+    File first = writeArchive("first.jar", "pkg/Lib.class", getClassWithField("pkg/Lib", "first"));
+    File second = writeArchive("second.jar", "pkg/Lib.class", getClassWithField("pkg/Lib", "second"));
+
+    assertField(newContext(null, first, second), "pkg/Lib", "second");
+    assertField(newContext(null, second, first), "pkg/Lib", "first");
+  }
+
+  @Test
+  public void testLastLibraryWinsWithSummaries() throws IOException {
+    File first = writeArchive("first.jar", "pkg/Lib.class", getClassWithField("pkg/Lib", "first"));
+    File second = writeArchive("second.jar", "pkg/Lib.class", getClassWithField("pkg/Lib", "second"));
+    File summaryDir = new File(fixture.getTempDir(), "summaries");
+
+    // the summaries are written by the first context and read by the second one
+    assertField(newContext(summaryDir, first, second), "pkg/Lib", "second");
+    assertField(newContext(summaryDir, first, second), "pkg/Lib", "second");
+    assertField(newContext(summaryDir, second, first), "pkg/Lib", "first");
+  }
+
+  @Test
+  public void testVersionedEntries() throws IOException {
+    File archive = new File(fixture.getTempDir(), "versioned.jar");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+    try {
+      out.putNextEntry(new ZipEntry("META-INF/versions/9/pkg/Lib.class"));
+      out.write(getClassWithField("pkg/Lib", "versioned"));
+      out.putNextEntry(new ZipEntry("pkg/Lib.class"));
+      out.write(getClassWithField("pkg/Lib", "base"));
+      out.putNextEntry(new ZipEntry("META-INF/versions/9/pkg/Other.class"));
+      out.write(getClassWithField("pkg/Other", "versioned"));
+    }
+    finally {
+      out.close();
+    }
+
+    StructContext context = newContext(null, archive);
+    assertField(context, "pkg/Lib", "base");
+    assertFalse(context.hasClass("META-INF/versions/9/pkg/Lib"));
+    assertFalse(context.hasClass("pkg/Other"));
+  }
+
+  private File writeArchive(String name, String entryName, byte[] bytes) throws IOException {
+    File archive = new File(fixture.getTempDir(), name);
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+    try {
+      out.putNextEntry(new ZipEntry(entryName));
+      out.write(bytes);
+    }
+    finally {
+      out.close();
+    }
+    return archive;
+  }
+
+  private StructContext newContext(File summaryDir, File... libraries) throws IOException {
+    if (fernflower != null) {
+      fernflower.clearContext();
+    }
+
+    Map<String, Object> options = new HashMap<String, Object>();
+    if (summaryDir != null) {
+      options.put(IFernflowerPreferences.LIBRARY_SUMMARY_DIR, summaryDir.getPath());
+    }
+    IBytecodeProvider provider = new IBytecodeProvider() {
+      @Override
+      public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+        ZipFile file = new ZipFile(externalPath);
+        try {
+          return InterpreterUtil.getBytes(file, file.getEntry(internalPath));
+        }
+        finally {
+          file.close();
+        }
+      }
+    };
+    fernflower = new Fernflower(provider, null, options, new PrintStreamLogger(System.out), null);
+
+    StructContext context = fernflower.getStructContext();
+    for (File library : libraries) {
+      context.addSpace(library, false);
+    }
+    return context;
+  }
+
+  private static void assertField(StructContext context, String className, String fieldName) {
+    StructClass cl = context.getClass(className);
+    assertNotNull(cl);
+    assertTrue(fieldName, cl.hasField(fieldName, "I"));
+  }
+
+  // a class with a single int field of the given name
+  private static byte[] getClassWithField(String name, String fieldName) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(52);
+    out.writeShort(7); // pool size
+    out.writeByte(1); // #1 Utf8
+    out.writeUTF(name);
+    out.writeByte(7); // #2 Class #1
+    out.writeShort(1);
+    out.writeByte(1); // #3 Utf8
+    out.writeUTF("java/lang/Object");
+    out.writeByte(7); // #4 Class #3
+    out.writeShort(3);
+    out.writeByte(1); // #5 Utf8
+    out.writeUTF(fieldName);
+    out.writeByte(1); // #6 Utf8
+    out.writeUTF("I");
+    out.writeShort(0x21);
+    out.writeShort(2);
+    out.writeShort(4);
+    out.writeShort(0); // interfaces
+    out.writeShort(1); // fields
+    out.writeShort(0);
+    out.writeShort(5);
+    out.writeShort(6);
+    out.writeShort(0);
+    out.writeShort(0); // methods
+    out.writeShort(0); // attributes
+    out.flush();
+    return bytes.toByteArray();
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.code.CodeConstants;
+import de.fernflower.main.Fernflower;
+import de.fernflower.main.decompiler.PrintStreamLogger;
+import de.fernflower.main.extern.IBytecodeProvider;
+import de.fernflower.main.extern.IFernflowerPreferences;
+import de.fernflower.struct.StructClass;
+import de.fernflower.struct.StructContext;
+import de.fernflower.struct.StructMethod;
+import de.fernflower.struct.lazy.LibrarySummary;
+import de.fernflower.util.InterpreterUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LibrarySummaryTest {
+  private DecompilerTestFixture fixture;
+  private File archive;
+  private File summaryDir;
+  private Fernflower fernflower;
+  private final List<String> errors = new ArrayList<String>();
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+    summaryDir = new File(fixture.getTempDir(), "summaries");
+
+    archive = new File(fixture.getTempDir(), "library.jar");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+    try {
+      out.putNextEntry(new ZipEntry("pkg/TestClassVar.class"));
+      out.write(InterpreterUtil.getBytes(new File(fixture.getTestDataDir(), "classes/pkg/TestClassVar.class")));
+      out.putNextEntry(new ZipEntry("Module.class"));
+      out.write(getClassWithConstant("Module", CodeConstants.CONSTANT_Module));
+      out.putNextEntry(new ZipEntry("Broken.class"));
+      out.write(getClassWithConstant("Broken", 21));
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  @After
+  public void tearDown() {
+    if (fernflower != null) {
+      fernflower.clearContext();
+      fernflower = null;
+    }
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    StructContext first = newContext();
+    assertTrue(first.hasClass("Broken"));
+    StructClass cl = first.getClass("pkg/TestClassVar");
+    assertNotNull(cl);
+    List<String> methods = getMethodKeys(cl);
+
+    File summaryFile = LibrarySummary.getSummaryFile(summaryDir, archive);
+    LibrarySummary summary = LibrarySummary.read(summaryFile, archive);
+    assertNotNull(summary);
+    assertEquals(2, summary.getClasses().size());
+    assertTrue(summary.getClasses().containsKey("pkg/TestClassVar"));
+    assertTrue(summary.getClasses().containsKey("Module"));
+    assertEquals(1, summary.getEntries().size());
+    assertEquals("Broken.class", summary.getEntries().get("Broken"));
+
+    // the archive is read from the summary now, the class left out of it is still looked up in the archive
+    StructContext second = newContext();
+    cl = second.getClass("pkg/TestClassVar");
+    assertNotNull(cl);
+    assertNull(cl.getLoader()); // parsed from the summary
+    assertEquals(methods, getMethodKeys(cl));
+    assertNotNull(second.getClass("Module"));
+
+    assertTrue(second.hasClass("Broken"));
+    errors.clear();
+    assertNull(second.getClass("Broken"));
+    assertEquals(1, errors.size());
+    assertTrue(errors.get(0), errors.get(0).contains("Broken.class"));
+  }
+
+  @Test
+  public void testChangedArchive() throws IOException {
+    newContext();
+    File summaryFile = LibrarySummary.getSummaryFile(summaryDir, archive);
+    assertNotNull(LibrarySummary.read(summaryFile, archive));
+
+    assertTrue(archive.setLastModified(archive.lastModified() + 10000));
+    assertNull(LibrarySummary.read(summaryFile, archive));
+  }
+
+  private StructContext newContext() throws IOException {
+    if (fernflower != null) {
+      fernflower.clearContext();
+    }
+
+    Map<String, Object> options = new HashMap<String, Object>();
+    options.put(IFernflowerPreferences.LIBRARY_SUMMARY_DIR, summaryDir.getPath());
+    IBytecodeProvider provider = new IBytecodeProvider() {
+      @Override
+      public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
+        ZipFile file = new ZipFile(externalPath);
+        try {
+          return InterpreterUtil.getBytes(file, file.getEntry(internalPath));
+        }
+        finally {
+          file.close();
+        }
+      }
+    };
+    fernflower = new Fernflower(provider, null, options, new PrintStreamLogger(System.out) {
+      @Override
+      public void writeMessage(String message, Severity severity) {
+        if (severity == Severity.ERROR) {
+          errors.add(message);
+        }
+        super.writeMessage(message, severity);
+      }
+    }, null);
+
+    StructContext context = fernflower.getStructContext();
+    context.addSpace(archive, false);
+    return context;
+  }
+
+  private static List<String> getMethodKeys(StructClass cl) {
+    List<String> keys = new ArrayList<String>();
+    for (StructMethod mt : cl.getMethods()) {
+      keys.add(InterpreterUtil.makeUniqueKey(mt.getName(), mt.getDescriptor()));
+    }
+    return keys;
+  }
+
+  private static byte[] getClassWithConstant(String name, int tag) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(0xCAFEBABE);
+    out.writeShort(0);
+    out.writeShort(53);
+    out.writeShort(5); // pool size
+    out.writeByte(1); // #1 Utf8
+    out.writeUTF(name);
+    out.writeByte(7); // #2 Class #1
+    out.writeShort(1);
+    out.writeByte(1); // #3 Utf8
+    out.writeUTF("m");
+    out.writeByte(tag); // #4 with two bytes of data
+    out.writeShort(3);
+    out.writeShort(0x21);
+    out.writeShort(2);
+    out.writeShort(0);
+    out.writeShort(0); // interfaces
+    out.writeShort(0); // fields
+    out.writeShort(0); // methods
+    out.writeShort(0); // attributes
+    out.flush();
+    return bytes.toByteArray();
+  }
+}
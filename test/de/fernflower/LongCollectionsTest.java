@@ -0,0 +1,175 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.Test;
+
+import de.fernflower.modules.decompiler.vars.VarVersionPair;
+import de.fernflower.util.LongIntMap;
+import de.fernflower.util.LongObjectMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LongCollectionsTest {
+  private static final int[] EDGE_VALUES = {0, 1, -1, 2, -2, 65535, 65536, Integer.MAX_VALUE, Integer.MIN_VALUE,
+    Integer.MAX_VALUE - 1, Integer.MIN_VALUE + 1};
+
+  @Test
+  public void testPackUnpack() {
+    Set<Long> keys = new HashSet<Long>();
+    for (int var : EDGE_VALUES) {
+      for (int version : EDGE_VALUES) {
+        long key = VarVersionPair.pack(var, version);
+        assertEquals(key, new VarVersionPair(var, version).pack());
+
+        VarVersionPair pair = VarVersionPair.unpack(key);
+        assertEquals(var, pair.var);
+        assertEquals(version, pair.version);
+
+        // a negative version must not spill into the var half
+        assertTrue(keys.add(key));
+      }
+    }
+
+    assertNotEquals(VarVersionPair.pack(0, -1), VarVersionPair.pack(-1, -1));
+    assertNotEquals(VarVersionPair.pack(1, 0), VarVersionPair.pack(0, 1));
+  }
+
+  @Test
+  public void testObjectMapPutGetRemove() {
+    LongObjectMap<String> map = new LongObjectMap<String>();
+    assertTrue(map.isEmpty());
+    assertNull(map.put(VarVersionPair.pack(1, 1), "a"));
+    assertNull(map.put(VarVersionPair.pack(1, -1), "b"));
+    assertNull(map.put(VarVersionPair.pack(Integer.MIN_VALUE, Integer.MAX_VALUE), null));
+    assertEquals("a", map.put(VarVersionPair.pack(1, 1), "c"));
+    assertEquals(3, map.size());
+
+    assertEquals("c", map.get(VarVersionPair.pack(1, 1)));
+    assertEquals("b", map.get(VarVersionPair.pack(1, -1)));
+    assertNull(map.get(VarVersionPair.pack(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+    assertTrue(map.containsKey(VarVersionPair.pack(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+    assertFalse(map.containsKey(VarVersionPair.pack(-1, 1)));
+
+    assertEquals("b", map.remove(VarVersionPair.pack(1, -1)));
+    assertNull(map.remove(VarVersionPair.pack(1, -1)));
+    assertEquals(2, map.size());
+  }
+
+  @Test
+  public void testObjectMapResize() {
+    LongObjectMap<Integer> map = new LongObjectMap<Integer>();
+    for (int var = 0; var < 100; var++) {
+      for (int version = -50; version < 50; version++) {
+        map.put(VarVersionPair.pack(var, version), var * 1000 + version);
+      }
+    }
+    assertEquals(10000, map.size());
+    for (int var = 0; var < 100; var++) {
+      for (int version = -50; version < 50; version++) {
+        assertEquals(Integer.valueOf(var * 1000 + version), map.get(VarVersionPair.pack(var, version)));
+      }
+      assertFalse(map.containsKey(VarVersionPair.pack(var, 50)));
+    }
+  }
+
+  @Test
+  public void testObjectMapLikeHashMap() {
+    Random random = new Random(42);
+    LongObjectMap<Integer> map = new LongObjectMap<Integer>();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+
+    // few distinct keys, so that removals often hit long probe chains
+    for (int i = 0; i < 100000; i++) {
+      long key = VarVersionPair.pack(random.nextInt(20) - 10, random.nextInt(20) - 10);
+      if (random.nextInt(3) == 0) {
+        assertEquals(expected.remove(key), map.remove(key));
+      }
+      else {
+        assertEquals(expected.put(key, i), map.put(key, i));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+
+    for (int var = -10; var < 10; var++) {
+      for (int version = -10; version < 10; version++) {
+        long key = VarVersionPair.pack(var, version);
+        assertEquals(expected.get(key), map.get(key));
+        assertEquals(expected.containsKey(key), map.containsKey(key));
+      }
+    }
+  }
+
+  @Test
+  public void testIntMapPutGetRemove() {
+    LongIntMap map = new LongIntMap();
+    assertTrue(map.isEmpty());
+    assertEquals(-1, map.get(VarVersionPair.pack(0, 0), -1));
+
+    map.put(VarVersionPair.pack(0, 0), 1);
+    map.put(VarVersionPair.pack(0, -1), 2);
+    map.put(VarVersionPair.pack(Integer.MAX_VALUE, Integer.MIN_VALUE), 3);
+    map.put(VarVersionPair.pack(0, 0), 4);
+    assertEquals(3, map.size());
+    assertEquals(4, map.get(VarVersionPair.pack(0, 0), -1));
+    assertEquals(2, map.get(VarVersionPair.pack(0, -1), -1));
+    assertEquals(3, map.get(VarVersionPair.pack(Integer.MAX_VALUE, Integer.MIN_VALUE), -1));
+
+    map.remove(VarVersionPair.pack(0, -1));
+    map.remove(VarVersionPair.pack(0, -1));
+    assertEquals(2, map.size());
+    assertFalse(map.containsKey(VarVersionPair.pack(0, -1)));
+    assertTrue(map.containsKey(VarVersionPair.pack(0, 0)));
+  }
+
+  @Test
+  public void testIntMapLikeHashMap() {
+    Random random = new Random(7);
+    LongIntMap map = new LongIntMap();
+    Map<Long, Integer> expected = new HashMap<Long, Integer>();
+
+    for (int i = 0; i < 100000; i++) {
+      long key = VarVersionPair.pack(random.nextInt(20) - 10, random.nextInt(20) - 10);
+      if (random.nextInt(3) == 0) {
+        map.remove(key);
+        expected.remove(key);
+      }
+      else {
+        map.put(key, i);
+        expected.put(key, i);
+      }
+      assertEquals(expected.size(), map.size());
+    }
+
+    for (int var = -10; var < 10; var++) {
+      for (int version = -10; version < 10; version++) {
+        long key = VarVersionPair.pack(var, version);
+        Integer value = expected.get(key);
+        assertEquals(value == null ? -1 : value.intValue(), map.get(key, -1));
+      }
+    }
+  }
+}
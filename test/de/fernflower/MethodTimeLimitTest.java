@@ -0,0 +1,224 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.main.DecompilerContext;
+import de.fernflower.main.collectors.CounterContainer;
+import de.fernflower.main.collectors.VarNamesCollector;
+import de.fernflower.main.rels.MethodProcessorRunnable;
+import de.fernflower.modules.decompiler.stats.RootStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MethodTimeLimitTest {
+  private volatile boolean released;
+
+  @Before
+  public void setUp() {
+    DecompilerContext.initContext(null);
+    released = false;
+  }
+
+  @After
+  public void tearDown() {
+    released = true;
+    DecompilerContext.setCurrentContext(null);
+  }
+
+  @Test
+  public void testCancelledAtCheck() throws Throwable {
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, DecompilerContext.getCurrentContext()) {
+      @Override
+      protected RootStatement process() {
+        while (true) {
+          MethodProcessorRunnable.checkCancelled();
+        }
+      }
+    };
+
+    long start = System.currentTimeMillis();
+    assertFalse(task.runWithTimeLimit(1));
+    assertTrue(System.currentTimeMillis() - start < 10000);
+    assertFalse(task.isAbandoned());
+
+    try {
+      task.getResult();
+      fail("cancelled method has no result");
+    }
+    catch (CancellationException ignored) { }
+  }
+
+  @Test
+  public void testAbandonedWithoutCheck() throws Throwable {
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, DecompilerContext.getCurrentContext()) {
+      @Override
+      protected RootStatement process() {
+        while (!released) {
+          Thread.yield();
+        }
+        return null;
+      }
+    };
+
+    long start = System.currentTimeMillis();
+    assertFalse(task.runWithTimeLimit(1));
+    assertTrue(System.currentTimeMillis() - start < 10000);
+    assertTrue(task.isAbandoned());
+  }
+
+  @Test
+  public void testWithinLimit() throws Throwable {
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, DecompilerContext.getCurrentContext()) {
+      @Override
+      protected RootStatement process() {
+        MethodProcessorRunnable.checkCancelled();
+        return null;
+      }
+    };
+
+    assertTrue(task.runWithTimeLimit(5));
+    assertFalse(task.isAbandoned());
+  }
+
+  @Test
+  public void testCollectorsTakenOverWithinLimit() throws Throwable {
+    CounterContainer counter = new CounterContainer();
+    VarNamesCollector names = new VarNamesCollector();
+    DecompilerContext.setCounterContainer(counter);
+    DecompilerContext.setVarNamesCollector(names);
+
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, DecompilerContext.getCurrentContext()) {
+      @Override
+      protected RootStatement process() {
+        DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, 42);
+        DecompilerContext.getVarNamesCollector().addName("used");
+        return null;
+      }
+    };
+
+    assertTrue(task.runWithTimeLimit(5));
+    assertEquals(42, counter.getCounter(CounterContainer.VAR_COUNTER));
+    assertEquals("usedx", names.getFreeName("used"));
+  }
+
+  @Test
+  public void testAbandonedChangesNothing() throws Throwable {
+    CounterContainer counter = new CounterContainer();
+    VarNamesCollector names = new VarNamesCollector();
+    DecompilerContext.setCounterContainer(counter);
+    DecompilerContext.setVarNamesCollector(names);
+
+    final CountDownLatch proceed = new CountDownLatch(1);
+    final CountDownLatch done = new CountDownLatch(1);
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, DecompilerContext.getCurrentContext()) {
+      @Override
+      protected RootStatement process() {
+        try {
+          proceed.await();
+        }
+        catch (InterruptedException ignored) { }
+        DecompilerContext.getCounterContainer().setCounter(CounterContainer.VAR_COUNTER, 42);
+        DecompilerContext.getVarNamesCollector().addName("used");
+        done.countDown();
+        return null;
+      }
+    };
+
+    assertFalse(task.runWithTimeLimit(1));
+    assertTrue(task.isAbandoned());
+
+    // the method goes on after the caller has given up on it, on collectors of its own
+    proceed.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    assertEquals(1, counter.getCounter(CounterContainer.VAR_COUNTER));
+    assertEquals("used", names.getFreeName("used"));
+  }
+
+  @Test
+  public void testRejectedWhileTooManyAbandoned() throws Throwable {
+    final DecompilerContext context = DecompilerContext.getCurrentContext();
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int i = 0; i < MethodProcessorRunnable.MAX_ABANDONED_TASKS; i++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          try {
+            newStuckTask(context).runWithTimeLimit(1);
+          }
+          catch (InterruptedException ignored) { }
+        }
+      };
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    final boolean[] started = new boolean[1];
+    MethodProcessorRunnable task = new MethodProcessorRunnable(null, null, context) {
+      @Override
+      protected RootStatement process() {
+        started[0] = true;
+        return null;
+      }
+    };
+    assertFalse(task.runWithTimeLimit(5));
+    assertTrue(task.isRejected());
+    assertFalse(started[0]);
+
+    // once the methods left running finish, methods are started again
+    released = true;
+    long start = System.currentTimeMillis();
+    while (task.isRejected() && System.currentTimeMillis() - start < 10000) {
+      Thread.sleep(10);
+      task = new MethodProcessorRunnable(null, null, context) {
+        @Override
+        protected RootStatement process() {
+          return null;
+        }
+      };
+      boolean finished = task.runWithTimeLimit(5);
+      assertEquals(!task.isRejected(), finished);
+    }
+    assertFalse(task.isRejected());
+  }
+
+  private MethodProcessorRunnable newStuckTask(DecompilerContext context) {
+    return new MethodProcessorRunnable(null, null, context) {
+      @Override
+      protected RootStatement process() {
+        while (!released) {
+          Thread.yield();
+        }
+        return null;
+      }
+    };
+  }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.main.decompiler.ConsoleDecompiler;
+import de.fernflower.main.extern.IFernflowerPreferences;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+  private DecompilerTestFixture fixture;
+  private File cacheDir;
+  private File classesDir;
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+    cacheDir = new File(fixture.getTempDir(), "cache");
+    classesDir = new File(fixture.getTempDir(), "classes");
+  }
+
+  @After
+  public void tearDown() {
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testCacheHit() throws IOException {
+    compile("A.java", "public class A { int f(B b) { return b.foo(); } }",
+            "B.java", "public class B { int foo() { return 1; } }");
+
+    // only the class itself is written and cached
+    String text = decompile("A");
+    Set<String> keys = getKeys();
+    assertEquals(1, keys.size());
+
+    assertEquals(text, decompile("A"));
+    assertEquals(keys, getKeys());
+  }
+
+  @Test
+  public void testReferencedClassMembers() throws IOException {
+    compile("A.java", "public class A { int f(B b) { return b.foo(); } }",
+            "B.java", "public class B { int foo() { return 1; } }");
+    String keyA = getKey("A");
+
+    // only the code of B changes, not what A sees of it
+    compile("B.java", "public class B { int foo() { return 2; } }");
+    assertEquals(keyA, getKey("A"));
+
+    compile("B.java", "public class B { int foo() { return 2; } void bar() { } }");
+    assertFalse(keyA.equals(getKey("A")));
+  }
+
+  @Test
+  public void testReferencedClassHierarchy() throws IOException {
+    compile("A.java", "public class A { int f(B b) { return b.foo(); } }",
+            "B.java", "public class B extends C { int foo() { return 1; } }",
+            "C.java", "public class C { }");
+    String keyA = getKey("A");
+
+    compile("C.java", "public class C { void bar() { } }");
+    assertFalse(keyA.equals(getKey("A")));
+  }
+
+  @Test
+  public void testCyclicHierarchy() throws IOException {
+    compile("A.java", "public class A { void f(CycleB b) { } }",
+            "C.java", "public class C { void f(CycleA a) { } }",
+            "CycleA.java", "public class CycleA extends CycleB { }",
+            "CycleB.java", "public class CycleB extends CycleX { }",
+            "CycleX.java", "public class CycleX { }");
+    // javac doesn't compile a cyclic hierarchy, the super class of CycleB is renamed in its class file
+    File classB = new File(classesDir, "CycleB.class");
+    String bytes = new String(Files.readAllBytes(classB.toPath()), StandardCharsets.ISO_8859_1);
+    Files.write(classB.toPath(), bytes.replace("CycleX", "CycleA").getBytes(StandardCharsets.ISO_8859_1));
+    assertTrue(new File(classesDir, "CycleX.class").delete());
+
+    // the keys don't depend on the class of the cycle that is hashed first
+    List<String> keys = getKeysInOrder("A", "C");
+    List<String> reversed = getKeysInOrder("C", "A");
+    assertEquals(keys.get(0), reversed.get(1));
+    assertEquals(keys.get(1), reversed.get(0));
+  }
+
+  @Test
+  public void testOptions() throws IOException {
+    compile("A.java", "public class A<T> { T f(T t) { return t; } }");
+    String keyA = getKey("A");
+
+    // options that don't change the text keep the key
+    assertEquals(keyA, getKey("A", IFernflowerPreferences.THREADS, "2"));
+    assertFalse(keyA.equals(getKey("A", IFernflowerPreferences.DECOMPILE_GENERIC_SIGNATURES, "0")));
+    assertFalse(keyA.equals(getKey("A", IFernflowerPreferences.INDENT_STRING, "  ")));
+  }
+
+  @Test
+  public void testNestedClasses() throws IOException {
+    compile("A.java", "public class A { static class Inner { int a; } }");
+    String keyA = getKey("A");
+
+    compile("A.java", "public class A { static class Inner { int b; } }");
+    assertFalse(keyA.equals(getKey("A")));
+  }
+
+  @Test
+  public void testMethodErrorNotCached() {
+    File classFile = new File(fixture.getTestDataDir(), "classes/com/mojang/minecraft/BackgroundDownloader.class");
+
+    for (int run = 0; run < 2; run++) {
+      ConsoleDecompiler decompiler = newDecompiler();
+      decompiler.addSpace(classFile, true);
+      assertNotNull(decompiler.decompile("com/mojang/minecraft/BackgroundDownloader"));
+
+      // the method is tried again, and its error logged again
+      assertFalse(fixture.getErrors().isEmpty());
+      assertTrue(getKeys().isEmpty());
+    }
+  }
+
+  private void compile(String... namesAndSources) throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull("no compiler in this runtime", compiler);
+
+    File sourceDir = new File(fixture.getTempDir(), "src");
+    List<String> args = new ArrayList<String>(Arrays.asList("-g:none", "-d", classesDir.getPath()));
+    for (int i = 0; i < namesAndSources.length; i += 2) {
+      File file = new File(sourceDir, namesAndSources[i]);
+      file.getParentFile().mkdirs();
+      Files.write(file.toPath(), namesAndSources[i + 1].getBytes(StandardCharsets.UTF_8));
+      args.add(file.getPath());
+    }
+    classesDir.mkdirs();
+    assertEquals(0, compiler.run(null, null, null, args.toArray(new String[args.size()])));
+  }
+
+  private ConsoleDecompiler newDecompiler(String... optionPairs) {
+    String[] options = Arrays.copyOf(optionPairs, optionPairs.length + 2);
+    options[optionPairs.length] = IFernflowerPreferences.RESULT_CACHE_DIR;
+    options[optionPairs.length + 1] = cacheDir.getPath();
+    return fixture.newDecompiler(options);
+  }
+
+  private String decompile(String qualifiedName, String... optionPairs) {
+    ConsoleDecompiler decompiler = newDecompiler(optionPairs);
+    File[] files = classesDir.listFiles();
+    assertNotNull(files);
+    for (File file : files) {
+      decompiler.addSpace(file, true);
+    }
+    String text = decompiler.decompile(qualifiedName);
+    assertNotNull(text);
+    return text;
+  }
+
+  // the key a class is cached under, the cache is emptied first
+  private String getKey(String qualifiedName, String... optionPairs) {
+    deleteKeys();
+    decompile(qualifiedName, optionPairs);
+    Set<String> keys = getKeys();
+    assertEquals(1, keys.size());
+    return keys.iterator().next();
+  }
+
+  // the keys of classes decompiled one after the other by the same decompiler, the cache is emptied first
+  private List<String> getKeysInOrder(String... qualifiedNames) {
+    deleteKeys();
+    ConsoleDecompiler decompiler = newDecompiler();
+    File[] files = classesDir.listFiles();
+    assertNotNull(files);
+    for (File file : files) {
+      decompiler.addSpace(file, true);
+    }
+
+    List<String> keys = new ArrayList<String>();
+    for (String name : qualifiedNames) {
+      Set<String> before = getKeys();
+      assertNotNull(decompiler.decompile(name));
+      Set<String> added = getKeys();
+      added.removeAll(before);
+      assertEquals(1, added.size());
+      keys.add(added.iterator().next());
+    }
+    return keys;
+  }
+
+  private Set<String> getKeys() {
+    Set<String> keys = new TreeSet<String>();
+    File[] dirs = cacheDir.listFiles();
+    if (dirs != null) {
+      for (File dir : dirs) {
+        String[] names = dir.list();
+        if (names != null) {
+          for (String name : names) {
+            keys.add(dir.getName() + name);
+          }
+        }
+      }
+    }
+    return keys;
+  }
+
+  private void deleteKeys() {
+    File[] dirs = cacheDir.listFiles();
+    if (dirs != null) {
+      for (File dir : dirs) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+          for (File file : files) {
+            assertTrue(file.delete());
+          }
+        }
+      }
+    }
+  }
+}
@@ -84,6 +84,19 @@ public class SingleClassesTest {
   @Test public void testMethodReferenceLetterClass() { doTest("pkg/TestMethodReferenceLetterClass"); }
   @Test public void testMinecraftBackgroundDownloader() { doTest("com/mojang/minecraft/BackgroundDownloader"); };
 
+  @Test
+  public void testDeterminismCheckWithLambdas() throws IOException {
+    fixture.tearDown();
+    fixture.setUp(IFernflowerPreferences.BYTECODE_SOURCE_MAPPING, "1",
+                  IFernflowerPreferences.DUMP_ORIGINAL_LINES, "1",
+                  IFernflowerPreferences.THREADS, "2",
+                  IFernflowerPreferences.CHECK_DETERMINISM, "1");
+
+    // a second class, so that the classes are decompiled on the pool and checked
+    doTest("pkg/TestClassLambda", "pkg/TestMethodReferenceSameName");
+    assertTrue(fixture.getErrors().toString(), fixture.getErrors().isEmpty());
+  }
+
   protected void doTest(String testFile, String... companionFiles) {
     ConsoleDecompiler decompiler = fixture.getDecompiler();
 
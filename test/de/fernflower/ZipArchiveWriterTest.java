@@ -0,0 +1,353 @@
+/*
+ * Copyright 2000-2016 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.fernflower;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.fernflower.util.ArchiveHandlePool;
+import de.fernflower.util.InterpreterUtil;
+import de.fernflower.util.RawZipArchive;
+import de.fernflower.util.ZipArchiveWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ZipArchiveWriterTest {
+  private static final LocalDateTime TIME = LocalDateTime.of(2016, 1, 2, 3, 4, 6);
+
+  private DecompilerTestFixture fixture;
+  private final ArchiveHandlePool pool = new ArchiveHandlePool(4);
+
+  @Before
+  public void setUp() throws IOException {
+    fixture = new DecompilerTestFixture();
+    fixture.setUp();
+  }
+
+  @After
+  public void tearDown() {
+    pool.closeUnused();
+    fixture.tearDown();
+    fixture = null;
+  }
+
+  @Test
+  public void testDeflatedEntries() throws IOException {
+    File file = new File(fixture.getTempDir(), "deflated.jar");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+    manifest.getMainAttributes().putValue("Created-By", "test");
+
+    ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(file), manifest);
+    writer.writeEntry("dir/", null);
+    writer.writeTextEntry("dir/A.java", "class A { String s = \"\u00e4\u00f6\u00fc\"; }");
+    writer.writeEntry("dir/empty.txt", new byte[0]);
+    writer.writeEntry("dir/data.bin", getData(100000, 1));
+    writer.close();
+
+    JarFile jar = new JarFile(file);
+    try {
+      assertEquals("test", jar.getManifest().getMainAttributes().getValue("Created-By"));
+      assertEquals(5, jar.size());
+      assertEntry(jar, "dir/", ZipEntry.STORED, new byte[0]);
+      assertEntry(jar, "dir/A.java", ZipEntry.DEFLATED, "class A { String s = \"\u00e4\u00f6\u00fc\"; }".getBytes(StandardCharsets.UTF_8));
+      assertEntry(jar, "dir/empty.txt", ZipEntry.STORED, new byte[0]);
+      assertEntry(jar, "dir/data.bin", ZipEntry.DEFLATED, getData(100000, 1));
+    }
+    finally {
+      jar.close();
+    }
+  }
+
+  @Test
+  public void testStoredEntries() throws IOException {
+    File file = new File(fixture.getTempDir(), "stored.zip");
+    ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(file), null, Deflater.DEFAULT_COMPRESSION, true, 1);
+    writer.writeEntry("a.bin", getData(5000, 2));
+    writer.writeTextEntry("b.txt", "text");
+    writer.close();
+
+    ZipFile zip = new ZipFile(file);
+    try {
+      assertEquals(2, zip.size());
+      assertEntry(zip, "a.bin", ZipEntry.STORED, getData(5000, 2));
+      assertEntry(zip, "b.txt", ZipEntry.STORED, "text".getBytes(StandardCharsets.UTF_8));
+    }
+    finally {
+      zip.close();
+    }
+  }
+
+  @Test
+  public void testCopiedEntries() throws IOException {
+    // written with data descriptors, which are dropped by the copy
+    File source = new File(fixture.getTempDir(), "source.zip");
+    byte[] storedData = getData(3000, 4);
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(source));
+    try {
+      out.putNextEntry(new ZipEntry("deflated.bin"));
+      out.write(getData(50000, 3));
+      ZipEntry stored = new ZipEntry("stored.bin");
+      CRC32 crc = new CRC32();
+      crc.update(storedData);
+      stored.setMethod(ZipEntry.STORED);
+      stored.setSize(storedData.length);
+      stored.setCrc(crc.getValue());
+      out.putNextEntry(stored);
+      out.write(storedData);
+    }
+    finally {
+      out.close();
+    }
+
+    File file = new File(fixture.getTempDir(), "copied.zip");
+    ArchiveHandlePool.Handle handle = pool.acquire(source);
+    try {
+      assertNotNull(handle.getRawArchive());
+      assertNotNull(handle.getRawArchive().getEntry("deflated.bin"));
+
+      ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(file), null);
+      writer.writeTextEntry("new.txt", "new");
+      assertTrue(writer.copyEntry(handle, "deflated.bin"));
+      assertTrue(writer.copyEntry(handle, "stored.bin"));
+      assertFalse(writer.copyEntry(handle, "missing.bin"));
+      writer.close();
+    }
+    finally {
+      handle.close();
+    }
+
+    ZipFile zip = new ZipFile(file);
+    ZipFile sourceZip = new ZipFile(source);
+    try {
+      assertEquals(3, zip.size());
+      assertEntry(zip, "new.txt", ZipEntry.DEFLATED, "new".getBytes(StandardCharsets.UTF_8));
+      assertEntry(zip, "deflated.bin", ZipEntry.DEFLATED, getData(50000, 3));
+      assertEntry(zip, "stored.bin", ZipEntry.STORED, storedData);
+      // the data is taken as it is compressed in the source
+      assertEquals(sourceZip.getEntry("deflated.bin").getCompressedSize(), zip.getEntry("deflated.bin").getCompressedSize());
+    }
+    finally {
+      zip.close();
+      sourceZip.close();
+    }
+  }
+
+  @Test
+  public void testCopyFromBrokenLocalHeader() throws IOException {
+    File source = new File(fixture.getTempDir(), "broken.zip");
+    ZipArchiveWriter sourceWriter = new ZipArchiveWriter(new FileOutputStream(source), null, Deflater.DEFAULT_COMPRESSION, true, 1);
+    sourceWriter.writeTextEntry("a.txt", "first");
+    sourceWriter.writeTextEntry("b.txt", "second");
+    sourceWriter.close();
+
+    // the central directory still points to the local header of b.txt, which is no header anymore
+    byte[] bytes = Files.readAllBytes(source.toPath());
+    int second = -1;
+    for (int i = 1; i < bytes.length - 4; i++) {
+      if (bytes[i] == 'P' && bytes[i + 1] == 'K' && bytes[i + 2] == 3 && bytes[i + 3] == 4) {
+        second = i;
+        break;
+      }
+    }
+    assertTrue(second > 0);
+    bytes[second] = 0;
+    Files.write(source.toPath(), bytes);
+
+    File file = new File(fixture.getTempDir(), "copied.zip");
+    ArchiveHandlePool.Handle handle = pool.acquire(source);
+    try {
+      assertNotNull(handle.getRawArchive().getEntry("b.txt"));
+
+      ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(file), null);
+      assertTrue(writer.copyEntry(handle, "a.txt"));
+      try {
+        writer.copyEntry(handle, "b.txt");
+        fail("the entry can't be read");
+      }
+      catch (IOException ignored) { }
+      writer.close();
+    }
+    finally {
+      handle.close();
+    }
+
+    // nothing of the failed entry is written
+    ZipFile zip = new ZipFile(file);
+    try {
+      assertEquals(1, zip.size());
+      assertEntry(zip, "a.txt", ZipEntry.STORED, "first".getBytes(StandardCharsets.UTF_8));
+    }
+    finally {
+      zip.close();
+    }
+  }
+
+  @Test
+  public void testZip64Boundary() throws IOException {
+    File below = writeEntries("below.zip", 0xFFFE);
+    File zip64 = writeEntries("zip64.zip", 0xFFFF);
+    assertFalse(hasZip64End(below));
+    assertTrue(hasZip64End(zip64));
+
+    for (File file : new File[]{below, zip64}) {
+      ZipFile zip = new ZipFile(file);
+      try {
+        int count = file == below ? 0xFFFE : 0xFFFF;
+        assertEquals(count, zip.size());
+        assertEntry(zip, "e0", ZipEntry.STORED, "0".getBytes(StandardCharsets.UTF_8));
+        assertEntry(zip, "e" + (count - 1), ZipEntry.STORED, String.valueOf(count - 1).getBytes(StandardCharsets.UTF_8));
+      }
+      finally {
+        zip.close();
+      }
+    }
+
+    // entries of a zip64 archive are copied through java.util.zip
+    RawZipArchive raw = new RawZipArchive(below);
+    try {
+      assertNotNull(raw.getEntry("e1"));
+    }
+    finally {
+      raw.close();
+    }
+    raw = new RawZipArchive(zip64);
+    try {
+      assertNull(raw.getEntry("e1"));
+    }
+    finally {
+      raw.close();
+    }
+
+    File copy = new File(fixture.getTempDir(), "copy.zip");
+    ArchiveHandlePool.Handle handle = pool.acquire(zip64);
+    try {
+      ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(copy), null);
+      assertTrue(writer.copyEntry(handle, "e12345"));
+      writer.close();
+    }
+    finally {
+      handle.close();
+    }
+    ZipFile zip = new ZipFile(copy);
+    try {
+      // compressed again like a new entry
+      assertEntry(zip, "e12345", ZipEntry.DEFLATED, "12345".getBytes(StandardCharsets.UTF_8));
+    }
+    finally {
+      zip.close();
+    }
+  }
+
+  @Test
+  public void testSameArchiveOnAnyThreads() throws IOException {
+    File source = new File(fixture.getTempDir(), "source.zip");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(source));
+    try {
+      out.putNextEntry(new ZipEntry("copied.bin"));
+      out.write(getData(20000, 5));
+    }
+    finally {
+      out.close();
+    }
+
+    byte[] serial = writeArchive(source, 1);
+    byte[] parallel = writeArchive(source, 4);
+    assertArrayEquals(serial, parallel);
+  }
+
+  private byte[] writeArchive(File source, int threads) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ArchiveHandlePool.Handle handle = pool.acquire(source);
+    try {
+      ZipArchiveWriter writer = new ZipArchiveWriter(bytes, null, Deflater.DEFAULT_COMPRESSION, false, threads);
+      writer.setTime(TIME);
+      for (int i = 0; i < 100; i++) {
+        writer.writeEntry("entry" + i + ".bin", getData(i * 300, i));
+        if (i == 50) {
+          assertTrue(writer.copyEntry(handle, "copied.bin"));
+        }
+      }
+      writer.close();
+    }
+    finally {
+      handle.close();
+    }
+    return bytes.toByteArray();
+  }
+
+  private File writeEntries(String name, int count) throws IOException {
+    File file = new File(fixture.getTempDir(), name);
+    ZipArchiveWriter writer = new ZipArchiveWriter(new FileOutputStream(file), null, Deflater.DEFAULT_COMPRESSION, true, 1);
+    for (int i = 0; i < count; i++) {
+      writer.writeTextEntry("e" + i, String.valueOf(i));
+    }
+    writer.close();
+    return file;
+  }
+
+  private static boolean hasZip64End(File file) throws IOException {
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    // zip64 end record, its locator and the end record are the last 98 bytes
+    int offset = bytes.length - 98;
+    return offset >= 0 && bytes[offset] == 0x50 && bytes[offset + 1] == 0x4b && bytes[offset + 2] == 0x06 && bytes[offset + 3] == 0x06;
+  }
+
+  // compressible data of the given length, different for every seed
+  private static byte[] getData(int length, int seed) {
+    Random random = new Random(seed);
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte)('a' + random.nextInt(4));
+    }
+    return data;
+  }
+
+  private static void assertEntry(ZipFile zip, String name, int method, byte[] data) throws IOException {
+    ZipEntry entry = zip.getEntry(name);
+    assertNotNull(name, entry);
+    assertEquals(name, method, entry.getMethod());
+    assertArrayEquals(data, InterpreterUtil.getBytes(zip, entry));
+
+    CRC32 crc = new CRC32();
+    crc.update(data);
+    assertEquals(crc.getValue(), entry.getCrc());
+  }
+}